@@ -32,6 +32,7 @@ import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
 import com.redpacts.frostpurge.game.audio.*;
 import com.redpacts.frostpurge.game.audio.AudioSource;
 import com.redpacts.frostpurge.game.util.*;
@@ -73,6 +74,8 @@ public class AssetDirectory extends AssetManager {
     protected Index contents;
     /** The dedicated loader for the {@link Index} class */
     protected DirectoryLoader topLoader;
+    /** The texture keys whose images are read from a texture atlas */
+    protected ObjectSet<String> packed;
 
     /**
      * This class represents the top level index of an asset directory.
@@ -166,9 +169,11 @@ public class AssetDirectory extends AssetManager {
         setLoader( ParticleEffect.class, new ParticleEffectLoader( resolver ) );
         setLoader( PolygonRegion.class, new PolygonRegionLoader( resolver ) );
 
-        // And now the default parsers
+        // And now the default parsers (atlases must come before textures)
+        packed = new ObjectSet<String>();
         topLoader.addParser( new JsonValueParser() );
-        topLoader.addParser( new TextureParser() );
+        topLoader.addParser( new TextureAtlasParser( packed ) );
+        topLoader.addParser( new TextureParser( packed ) );
         topLoader.addParser( new TextureRegionParser() );
         topLoader.addParser( new FilmStripParser() );
         topLoader.addParser( new FreetypeFontParser() );
@@ -296,6 +301,49 @@ public class AssetDirectory extends AssetManager {
         return get( filename, type );
     }
 
+    /**
+     * Returns a new film strip for the given texture key
+     *
+     * The film strip layout is defined in the "strips" list of an entry of the
+     * "atlases" section of the directory.  If that atlas has been built and loaded,
+     * the frames are read from the atlas, so that all the strips of the atlas share
+     * a few texture pages.  Otherwise the film strip is cut from the texture with
+     * the same key, using the rows, cols and size of the strip layout.
+     *
+     * Every call returns a new film strip, so that each object can animate on
+     * its own.  The method {@link #loadAssets} must have been called for this
+     * method to return a value.
+     *
+     * @param key  the texture key of the film strip
+     *
+     * @return a new film strip for the given texture key (null if there is none)
+     */
+    public FilmStrip getFilmStrip(String key) {
+        JsonValue atlases = contents.directory.get( "atlases" );
+        JsonValue layout = null;
+        if (atlases != null) {
+            for (JsonValue entry = atlases.child(); entry != null && layout == null; entry = entry.next()) {
+                JsonValue strips = entry.get( "strips" );
+                layout = strips == null ? null : strips.get( key );
+                if (layout != null && hasEntry( entry.name(), TextureAtlas.class )) {
+                    Array<TextureAtlas.AtlasRegion> frames = getEntry( entry.name(), TextureAtlas.class ).findRegions( key );
+                    if (frames.size > 0) {
+                        return new FilmStrip( frames );
+                    }
+                }
+            }
+        }
+
+        Texture texture = getEntry( key, Texture.class );
+        if (texture == null) {
+            return null;
+        }
+        int rows = layout == null ? 1 : layout.getInt( "rows", 1 );
+        int cols = layout == null ? 1 : layout.getInt( "cols", 1 );
+        int size = layout == null ? rows*cols : layout.getInt( "size", rows*cols );
+        return new FilmStrip( texture, rows, cols, size );
+    }
+
     /**
      * Returns true if there is an asset associated with the given directory key
      * 
@@ -0,0 +1,105 @@
+/*
+ * TextureAtlasParser.java
+ *
+ * This is an interface for parsing a JSON entry into a TextureAtlas asset.  The
+ * atlases are produced by the packAtlas task of the desktop build, which slices
+ * the film strips listed in the entry into individual frames.
+ */
+package com.redpacts.frostpurge.game.assets;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.JsonValue;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * This class parses a JSON entry into a {@link TextureAtlas}.
+ *
+ * Each entry has the atlas file and the list of film strips packed into it.  As
+ * the atlas is a build product, an entry whose file does not exist is skipped and
+ * the film strips are loaded from their textures instead.  If the atlas does exist,
+ * the names of its film strips are added to the packed set, so that the texture
+ * parser does not load the same images a second time.
+ */
+public class TextureAtlasParser implements AssetParser<TextureAtlas> {
+    /** The current atlas entry in the JSON directory */
+    private JsonValue root;
+    /** The texture keys replaced by a loaded atlas */
+    private ObjectSet<String> packed;
+
+    /**
+     * Creates a new atlas parser
+     *
+     * @param packed The set to store the texture keys replaced by an atlas
+     */
+    public TextureAtlasParser(ObjectSet<String> packed) {
+        this.packed = packed;
+    }
+
+    /**
+     * Returns the asset type generated by this parser
+     *
+     * @return the asset type generated by this parser
+     */
+    public Class<TextureAtlas> getType() {
+        return TextureAtlas.class;
+    }
+
+    /**
+     * Resets the parser iterator for the given directory.
+     *
+     * The value directory is assumed to be the root of a larger JSON structure.
+     * The individual assets are defined by subtrees in this structure.
+     *
+     * @param directory    The JSON representation of the asset directory
+     */
+    public void reset(JsonValue directory) {
+        root = directory;
+        root = root.getChild( "atlases" );
+    }
+
+    /**
+     * Returns true if there are still assets left to generate
+     *
+     * @return true if there are still assets left to generate
+     */
+    public boolean hasNext() {
+        return root != null;
+    }
+
+    /**
+     * Processes the next available atlas, loading it into the asset manager
+     *
+     * The key will be the name of the atlas entry.  This method fails silently
+     * if there are no available assets to process, or if the atlas has not been
+     * built yet.
+     *
+     * @param manager	The asset manager to load an asset
+     * @param keymap    The mapping of JSON keys to asset file names
+     */
+    public void processNext(AssetManager manager, ObjectMap<String,String> keymap) {
+        String file = root.getString( "file", null );
+        if (file != null && manager.getFileHandleResolver().resolve( file ).exists()) {
+            keymap.put(root.name(),file);
+            manager.load( file, TextureAtlas.class );
+            JsonValue strips = root.get( "strips" );
+            if (strips != null) {
+                for (JsonValue strip = strips.child(); strip != null; strip = strip.next()) {
+                    packed.add( strip.name() );
+                }
+            }
+        }
+        root = root.next();
+    }
+
+    /**
+     * Returns true if o is another TextureAtlasParser
+     *
+     * @return true if o is another TextureAtlasParser
+     */
+    public boolean equals(Object o) {
+        return o instanceof TextureAtlasParser;
+    }
+
+}
@@ -17,6 +17,7 @@ import com.badlogic.gdx.graphics.Pixmap;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.utils.JsonValue;
 import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.ObjectSet;
 
 /**
  * This class parses a JSON entry into a {@link Texture}.
@@ -25,12 +26,36 @@ import com.badlogic.gdx.utils.ObjectMap;
  * values of the same name. It is also possible to specify a texture by simply
  * giving the name of the file.  In that case, the default parameters will be
  * used on loading.
+ *
+ * Textures whose key has been packed into a texture atlas are skipped, since
+ * their frames are read from the atlas instead.
  * 
  * all properties) are stored in the file.
  */
 public class TextureParser implements AssetParser<Texture> {
     /** The current font entry in the JSON directory */
     private JsonValue root;
+    /** The texture keys already packed into a texture atlas (may be null) */
+    private ObjectSet<String> packed;
+
+    /**
+     * Creates a new texture parser that loads every texture entry
+     */
+    public TextureParser() {
+        this(null);
+    }
+
+    /**
+     * Creates a new texture parser that skips the given texture keys
+     *
+     * The set is read while parsing, so it may be filled by an earlier parser
+     * (e.g. the {@link TextureAtlasParser}).
+     *
+     * @param packed The texture keys already packed into a texture atlas
+     */
+    public TextureParser(ObjectSet<String> packed) {
+        this.packed = packed;
+    }
 
     /**
      * Returns the asset type generated by this parser
@@ -79,6 +104,10 @@ public class TextureParser implements AssetParser<Texture> {
      * @param keymap    The mapping of JSON keys to asset file names
      */
     public void processNext(AssetManager manager, ObjectMap<String,String> keymap) {
+        if (packed != null && packed.contains( root.name() )) {
+            root = root.next();
+            return;
+        }
         TextureLoader.TextureParameter params = new TextureLoader.TextureParameter();
         if (root.isString()) {
             params.genMipMaps = false;
@@ -1,18 +1,21 @@
 package com.redpacts.frostpurge.game.controllers;
 
 import java.util.Iterator;
-import java.util.Objects;
 
 import com.badlogic.gdx.Game;
-import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.math.*;
 import com.badlogic.gdx.utils.*;
 import com.badlogic.gdx.physics.box2d.*;
 
 import com.redpacts.frostpurge.game.assets.AssetDirectory;
 import com.redpacts.frostpurge.game.models.*;
+import com.redpacts.frostpurge.game.util.CollisionGeometryBuilder;
 import com.redpacts.frostpurge.game.util.EnemyStates;
 import com.redpacts.frostpurge.game.util.GameContactListener;
+import com.redpacts.frostpurge.game.util.LineOfSight;
+import com.redpacts.frostpurge.game.util.PerceptionScheduler;
+import com.redpacts.frostpurge.game.util.PhysicsActivityManager;
+import com.redpacts.frostpurge.game.util.PhysicsTelemetry;
 import com.redpacts.frostpurge.game.util.PooledList;
 
 
@@ -27,6 +30,7 @@ public class CollisionController{
         public static final short CATEGORY_DESTRUCTIBLE = 0x0040;    // 64
         public static final short CATEGORY_BOUNCY = 0x0080;          // 128
         public static final short CATEGORY_SWAMP = 0x0100;           // 256
+        public static final short CATEGORY_GOAL = 0x0200;            // 512
 
     }
     /** Reference to the game board */
@@ -54,6 +58,13 @@ public class CollisionController{
     protected Vector2 scale;
     /** Offset of vision cone */
     protected Vector2 offsetVisionCone = new Vector2();
+    /** Caches for the rays of the vision cones */
+    private final Vector2 rayStart = new Vector2();
+    private final Vector2 rayEnd = new Vector2();
+    private final Vector2 rayDirection = new Vector2();
+    private final Vector2 rayPrevious = new Vector2();
+    private final Vector2 triangleStart = new Vector2();
+    private final Vector2 triangleEnd = new Vector2();
 
     /** The amount of time for a physics engine step. */
     public static final float WORLD_STEP = 1/60.0f;
@@ -61,18 +72,42 @@ public class CollisionController{
     public static final int WORLD_VELOC = 14;
     /** Number of position iterations for the constraint solvers */
     public static final int WORLD_POSIT = 12;
+    /** Number of velocity iterations when nothing is moving fast (adaptive stepping) */
+    public static final int CALM_VELOC = 8;
+    /** Number of position iterations when nothing is moving fast (adaptive stepping) */
+    public static final int CALM_POSIT = 3;
+    /** Maximum number of sub-steps a step is split into (adaptive stepping) */
+    public static final int MAX_SUBSTEPS = 4;
+    /** Distance a body may travel in one sub-step (a quarter of a tile, in Box2D units) */
+    public static final float MAX_TRAVEL = 1.6f;
 
     /** Width of the game world in Box2d units */
     protected static final float DEFAULT_WIDTH  = 32.0f;
     /** Height of the game world in Box2d units */
     protected static final float DEFAULT_HEIGHT = 18.0f;
-    /** All the objects in the world. */
+    /** The moving objects in the world (updated every step). */
     protected PooledList<GameObject> objects  = new PooledList<GameObject>();
+    /** The objects with a static body (never updated) */
+    protected ObjectSet<GameObject> statics = new ObjectSet<GameObject>();
+    /** Objects whose bodies are destroyed at the end of the step */
+    private final Array<GameObject> destroyQueue = new Array<GameObject>();
+    /** Cache for the tiles removed from the level */
+    private final Array<TileModel> removedTiles = new Array<TileModel>();
     private float spillageTimer;
     private float swampx;
     private float swampy;
     private boolean vacuuming = false;
     private GameContactListener contactListener;
+    /** Puts the physics far away from the player to sleep */
+    private PhysicsActivityManager activity;
+    /** Casts the rays of the vision cones */
+    private LineOfSight sight;
+    /** Chooses the enemies checking their vision cone on each step */
+    private PerceptionScheduler perception;
+    /** Timings and counters of the latest physics steps */
+    private final PhysicsTelemetry telemetry = new PhysicsTelemetry();
+    /** Whether the sub-steps and solver iterations follow the speed of the bodies */
+    private boolean adaptiveStepping = true;
 
     /// ACCESSORS
 
@@ -155,9 +190,11 @@ public class CollisionController{
             System.out.println("GOAL CREATED");
             addObject(goal);
         }
+        // Obstacles never change, so they are merged into as few bodies as possible
+        CollisionGeometryBuilder.buildObstacles(world, board.getExtraLayer(), board.getWidth(), board.getHeight());
         for (TileModel[] t : board.getExtraLayer()) {
             for (TileModel tile : t){
-                if (tile != null) {
+                if (tile != null && !(tile instanceof ObstacleTile)) {
                     tile.createBody(world);
                     addObject(tile);
                 }
@@ -179,6 +216,82 @@ public class CollisionController{
         }
         contactListener = new GameContactListener(world, board, assets, volume);
         world.setContactListener(contactListener);
+
+        sight = new LineOfSight(board.getOccupancy(), 6.4f);
+        perception = new PerceptionScheduler();
+        activity = new PhysicsActivityManager(board.getWidth(), board.getHeight());
+        activity.addBodies(world, player != null ? player.getBody() : null);
+    }
+
+    /**
+     * Puts the world back in the state of the start of the level.
+     *
+     * The world and the bodies of the tiles are kept.  The bodies of the previous
+     * player, enemies and props are destroyed, and the new ones (from the reset level)
+     * are created in their place.  The enemy, bouncy and breakable arrays are the same
+     * as the ones given to the constructor, refilled by the level.
+     *
+     * @param player The new player
+     * @param goal   The new goal
+     */
+    public void reset(PlayerModel player, GoalTile goal) {
+        activity.wakeAll();
+        flushDestroyed();
+        Iterator<PooledList<GameObject>.Entry> iterator = objects.entryIterator();
+        while (iterator.hasNext()) {
+            PooledList<GameObject>.Entry entry = iterator.next();
+            GameObject obj = entry.getValue();
+            if (obj instanceof CharactersModel) {
+                world.destroyBody(obj.getBody());
+                entry.remove();
+            }
+        }
+        ObjectSet.ObjectSetIterator<GameObject> props = statics.iterator();
+        while (props.hasNext()) {
+            GameObject obj = props.next();
+            if (obj instanceof BouncyTile || obj instanceof BreakableTile || obj instanceof GoalTile) {
+                world.destroyBody(obj.getBody());
+                props.remove();
+            }
+        }
+
+        this.player = player;
+        this.goal = goal;
+        player.createBody(world);
+        addObject(player);
+        for (EnemyModel e : enemies) {
+            e.createBody(world);
+            addObject(e);
+        }
+        if (goal != null) {
+            goal.createBody(world);
+            addObject(goal);
+        }
+        for (BouncyTile b : bouncy) {
+            b.createBody(world);
+            addObject(b);
+        }
+        for (BreakableTile b : breakables) {
+            b.createBody(world);
+            addObject(b);
+        }
+        // The swamps restored by the level lost their bodies when they were vacuumed
+        for (TileModel[] row : board.getExtraLayer()) {
+            for (TileModel tile : row) {
+                if (tile instanceof SwampTile && tile.getBody() == null) {
+                    tile.createBody(world);
+                    addObject(tile);
+                }
+            }
+        }
+
+        contactListener.reset();
+        telemetry.clear();
+        spillageTimer = 0;
+        vacuuming = false;
+        perception = new PerceptionScheduler();
+        activity = new PhysicsActivityManager(board.getWidth(), board.getHeight());
+        activity.addBodies(world, player.getBody());
     }
 
     /**
@@ -189,6 +302,9 @@ public class CollisionController{
 //            obj.deactivatePhysics(world);
 //        }
         objects.clear();
+        statics.clear();
+        destroyQueue.clear();
+        contactListener.saveRecording();
         world.dispose();
         objects = null;
         bounds = null;
@@ -200,14 +316,54 @@ public class CollisionController{
     /**
      * Immediately adds the object to the physics world
      *
+     * Objects with a static body are kept apart from the moving ones, so that the
+     * update loop never visits them.  The body must be created first.
+     *
      * param obj The object to add
      */
     protected void addObject(GameObject obj) {
 //        assert inBounds(obj) : "Object is not in bounds";
-        objects.add(obj);
+        if (obj.getBody() != null && obj.getBody().getType() == BodyDef.BodyType.StaticBody) {
+            statics.add(obj);
+        } else {
+            objects.add(obj);
+        }
 //        obj.activatePhysics(world);
     }
 
+    /**
+     * Queues the body of an object to be destroyed at the end of the step
+     *
+     * Bodies cannot be destroyed during a world step, and destroying them in one
+     * batch keeps the broadphase from being touched all through the frame.
+     *
+     * @param obj The object to remove from the world
+     */
+    protected void queueDestroy(GameObject obj) {
+        destroyQueue.add(obj);
+    }
+
+    /**
+     * Destroys the bodies queued since the last call, including the tiles removed
+     * from the level.
+     */
+    private void flushDestroyed() {
+        board.drainRemovedTiles(removedTiles);
+        for (TileModel tile : removedTiles) {
+            queueDestroy(tile);
+        }
+        removedTiles.clear();
+
+        for (GameObject obj : destroyQueue) {
+            if (obj.getBody() != null) {
+                activity.removeBody(obj.getBody());
+            }
+            statics.remove(obj);
+            obj.deactivatePhysics(world);
+        }
+        destroyQueue.clear();
+    }
+
     /**
      * Returns true if the object is in bounds.
      *
@@ -226,25 +382,26 @@ public class CollisionController{
     /**
      * Update all collisions
      *
+     * @param dt	Number of seconds simulated by this step (normally WORLD_STEP)
      */
-    public void update() {
-        // TODO: Implement dt here
-        contactListener.updateTime(Gdx.graphics.getDeltaTime());
-        pickPowerUp((PlayerModel) player);
-        for (EnemyModel e : enemies){
-            if(!Objects.equals(e.getEnemyType(), "bat")){
-                checkEnemyVision(e);
-            }
+    public void update(float dt) {
+        contactListener.updateTime(dt);
+        activity.update(player.getBody().getPosition());
+        pickPowerUp((PlayerModel) player, dt);
+        perception.update(enemies, player.getBody().getPosition());
+        for (int i = 0; i < perception.size(); i++) {
+            checkEnemyVision(enemies.get(perception.get(i)));
         }
-        postUpdate(1/60f);
+        postUpdate(dt);
     }
     /**
      * Check if the player is on a swamp tile, and pick up the power up if true
      *
      * @param player Player to check
+     * @param dt	 Number of seconds simulated by this step
      */
-    private void pickPowerUp(PlayerModel player){
-        spillageTimer += Gdx.graphics.getDeltaTime();
+    private void pickPowerUp(PlayerModel player, float dt){
+        spillageTimer += dt;
         if(board.isSwampTile(player.getPosition().x, player.getPosition().y)) {
             if (player.getVacuumingProgression() == 0) {
                 spillageTimer = 0;
@@ -281,139 +438,175 @@ public class CollisionController{
      * physics.  The primary method is the step() method in world.  This implementation
      * works for all applications and should not need to be overwritten.
      *
-     * @param dt	Number of seconds since last animation frame
+     * @param dt	Number of seconds simulated by this step
      */
     public void postUpdate(float dt) {
         // Turn the physics engine crank.
-        world.step(WORLD_STEP,WORLD_VELOC,WORLD_POSIT);
+        long start = System.nanoTime();
+        long handling;
+        if (adaptiveStepping) {
+            handling = stepAdaptive(dt);
+        } else {
+            world.step(dt,WORLD_VELOC,WORLD_POSIT);
+            handling = handleEvents();
+        }
+        long handled = System.nanoTime();
+        long stepped = handled - handling;
 
-        // TODO: Implement activate, deactivate physics
         // Garbage collect the deleted objects.
         // Note how we use the linked list nodes to delete O(1) in place.
-        // This is O(n) without copying.
+        // Only the moving objects are visited; static ones are never updated.
         Iterator<PooledList<GameObject>.Entry> iterator = objects.entryIterator();
         while (iterator.hasNext()) {
             PooledList<GameObject>.Entry entry = iterator.next();
             GameObject obj = entry.getValue();
             if (obj.isRemoved()) {
-                obj.deactivatePhysics(world);
+                queueDestroy(obj);
                 entry.remove();
             } else {
                 // Note that update is called last!
                 obj.update(dt);
             }
         }
+        flushDestroyed();
+        telemetry.record(stepped - start, contactListener.takeCallbackTime(), handled - stepped,
+                System.nanoTime() - handled, world.getBodyCount(), world.getContactCount(), world.getProxyCount());
     }
 
-    // TODO: Fix logic check of vision cone
-    private static class VisionConeCallback implements RayCastCallback {
-        public boolean hitObstacle = false;
-        public boolean canSeeTarget = false;
-        public Vector2 hitPoint = null;
+    /**
+     * Steps the world with sub-steps and solver iterations chosen from the fastest body.
+     *
+     * When nothing moves more than MAX_TRAVEL in a step, the world takes a single
+     * step with the cheaper CALM iterations.  Otherwise the step is split so that no
+     * body travels more than MAX_TRAVEL per sub-step (up to MAX_SUBSTEPS), with the
+     * full iterations.  The player is only a bullet while a boost is under way, since
+     * that is the only time it is fast enough to pass through an enemy.
+     *
+     * The contacts are handled after every sub-step: Box2D enables every contact
+     * again at the start of a step, and the filter changes made by the handlers (such
+     * as a smashed box) must be in place before the next sub-step.
+     *
+     * @param dt	Number of seconds simulated by this step
+     * @return the time spent handling the contacts, in nanoseconds
+     */
+    private long stepAdaptive(float dt) {
+        player.getBody().setBullet(player.isBoosting());
 
-        public void clearHitPoint() {
-            hitPoint = null;
+        float speed = player.getBody().getLinearVelocity().len();
+        for (EnemyModel enemy : enemies) {
+            if (enemy.getBody() != null && enemy.getBody().isActive()) {
+                speed = Math.max(speed, enemy.getBody().getLinearVelocity().len());
+            }
         }
-        public Vector2 getHitPoint() {
-            if (hitPoint != null) return hitPoint.cpy();
-            else return null;
+
+        float travel = speed * dt;
+        if (travel <= MAX_TRAVEL) {
+            world.step(dt, CALM_VELOC, CALM_POSIT);
+            return handleEvents();
         }
-        // Returning 1 continues the ray cast to the end of its path
-        // Returning fraction or 0 would terminate the ray cast here
-        @Override
-        public float reportRayFixture(Fixture fixture, Vector2 point, Vector2 normal, float fraction) {
-            GameObject userData = (GameObject) fixture.getBody().getUserData();
-            if (userData instanceof EnemyModel || userData instanceof SwampTile){
-                return 1; // Ray cast continues
-            } else if (userData instanceof ObstacleTile || userData instanceof BouncyTile ||
-                    (userData instanceof BreakableTile && ((BreakableTile) userData).isActive())) {
-                hitObstacle = true;
-                hitPoint = point.cpy();
-                return fraction; // Ray cast ends here
-            } else if (userData instanceof PlayerModel) {
-                canSeeTarget = true;
-                return 1;
-            }
-            return 1;
+        int substeps = Math.min(MAX_SUBSTEPS, MathUtils.ceil(travel / MAX_TRAVEL));
+        float h = dt / substeps;
+        long handling = 0;
+        for (int i = 0; i < substeps; i++) {
+            world.step(h, WORLD_VELOC, WORLD_POSIT);
+            handling += handleEvents();
         }
+        return handling;
+    }
+
+    /**
+     * Handles the contacts that began during the last world step
+     *
+     * @return the time spent handling the contacts, in nanoseconds
+     */
+    private long handleEvents() {
+        long start = System.nanoTime();
+        contactListener.processEvents();
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Sets whether the sub-steps and solver iterations follow the speed of the bodies.
+     *
+     * When disabled, every step is a single step with the full iterations.
+     *
+     * @param value whether the sub-steps and solver iterations follow the speed of the bodies
+     */
+    public void setAdaptiveStepping(boolean value) {
+        adaptiveStepping = value;
+    }
+
+    /**
+     * Returns the timings and counters of the latest physics steps
+     *
+     * @return the timings and counters of the latest physics steps
+     */
+    public PhysicsTelemetry getTelemetry() {
+        return telemetry;
     }
 
     /**
      * Create vision cone for enemy, where it will check for player.
      *
-     * The vision cone will scan every object, and flags when it hits obstacle or player.
+     * The rays of the vision cone walk the occupancy grid of the level, stopping at
+     * the first obstacle, and flag the player if it is closer than that obstacle.
      *
      * @param enemy	    The vision cone of enemy
      */
     // TODO: Perhaps change parameters so that we can customize vision cone (length/fov).
     public void checkEnemyVision(EnemyModel enemy) {
-        // Create the callback instance
-        VisionConeCallback callback = new VisionConeCallback();
+        boolean canSeeTarget = false;
+        boolean hitObstacle = false;
+        Vector2 target = player.getBody().getPosition();
 
         // Calculating offset
 
         switch(getDirection(enemy.getBody().getLinearVelocity())) {
             case "right":
-                offsetVisionCone = new Vector2(3f, 6f);
+                offsetVisionCone.set(3f, 6f);
                 break;
             case "left":
-                offsetVisionCone = new Vector2(-3f, 6f);
+                offsetVisionCone.set(-3f, 6f);
                 break;
             case "up":
             case "down":
-                offsetVisionCone = new Vector2(0, 3f);
+                offsetVisionCone.set(0, 3f);
                 break;
             default:
-                offsetVisionCone = new Vector2();
+                offsetVisionCone.setZero();
                 break;
         }
 
         // Calculate the end point of the vision cone based on the enemy's direction and range
-        Vector2 rayStart = enemy.getBody().getPosition().cpy().add(offsetVisionCone);
-//        System.out.println(rayStart);
+        rayStart.set(enemy.getBody().getPosition()).add(offsetVisionCone);
         float fov = 45f; // Field of view angle in degrees
         int numRays = 20; // Number of rays to cast within the fov
         float deltaAngle = fov / (numRays - 1); // Angle between each ray
 
         // Calculate the direction vector based on enemy's rotation
-        Vector2 direction = enemy.getBody().getLinearVelocity().cpy().nor(); // Normalize the direction vector
-
-        float angle = -fov / 2; // Calculate current angle
-        Vector2 rayDirection = direction.cpy().rotateDeg(angle); // Rotate direction vector by current angle
-        Vector2 rayEnd = rayStart.cpy().add(rayDirection.scl(40f)); // Calculate end point of the ray
-        world.rayCast(callback, rayStart, rayEnd);
-
-        if (callback.getHitPoint() != null) { // Record where the ray cast end/collided with obstacle
-            rayEnd = callback.getHitPoint();
-            callback.clearHitPoint();
-        }
-        Vector2 rayPrevious = rayEnd.cpy();
-
-        for (int i = 1; i < numRays; i++) {
-            angle = -fov / 2 + deltaAngle * i;
-            rayDirection = direction.cpy().rotateDeg(angle);
-            rayEnd = rayStart.cpy().add(rayDirection.scl(40f));
-            world.rayCast(callback, rayStart, rayEnd);
-
-            if (callback.getHitPoint() != null) {
-                rayEnd = callback.getHitPoint();
-                callback.clearHitPoint();
+        rayDirection.set(enemy.getBody().getLinearVelocity()).nor(); // Normalize the direction vector
+
+        for (int i = 0; i < numRays; i++) {
+            float angle = -fov / 2 + deltaAngle * i;
+            rayEnd.set(rayDirection).rotateDeg(angle).scl(40f).add(rayStart);
+            hitObstacle |= sight.cast(rayStart.x, rayStart.y, rayEnd.x, rayEnd.y);
+            canSeeTarget |= sight.touches(target.x, target.y, player.getRadius());
+            rayEnd.set(sight.getHitPoint()); // Record where the ray cast end/collided with obstacle
+
+            if (i > 0) {
+                enemy.setTriangle(triangleStart.set(rayStart).scl(10).add(-100, -100),
+                        rayPrevious.scl(10).add(-100, -100),
+                        triangleEnd.set(rayEnd).scl(10).add(-100, -100)); // Add triangle to draw vision cone.
             }
-            enemy.setTriangle(rayStart.cpy().scl(10).add(-100, -100),
-                    rayPrevious.cpy().scl(10).add(-100, -100),
-                    rayEnd.cpy().scl(10).add(-100, -100)); // Add triangle to draw vision cone.
-            rayPrevious = rayEnd.cpy();
+            rayPrevious.set(rayEnd);
         }
 
-        if (callback.canSeeTarget) {
+        if (canSeeTarget) {
             // Enemy can see the target
-//            System.out.println("Target spotted!");
             enemy.setCurrentState(EnemyStates.CHASE);
-        } else if (callback.hitObstacle){
+        } else if (hitObstacle){
             // Vision blocked or target not in sight
-//            System.out.println("Obstacle hit.");
         } else{
-//            System.out.println("Target not spotted :(");
             enemy.setCurrentState(enemy.getCurrentState());
         }
     }
@@ -6,20 +6,19 @@ import com.badlogic.gdx.ai.pfa.GraphPath;
 import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.ai.fsm.*;
-import com.badlogic.gdx.graphics.g2d.PolygonRegion;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Queue;
 
 import com.badlogic.gdx.math.Vector2;
 import com.redpacts.frostpurge.game.models.*;
 import com.redpacts.frostpurge.game.util.EnemyStates;
-import com.redpacts.frostpurge.game.util.TileGraph;
+import com.redpacts.frostpurge.game.util.FlowField;
+import com.redpacts.frostpurge.game.util.PathRequestQueue;
 import com.redpacts.frostpurge.game.views.GameCanvas;
 
 import java.util.ArrayList;
 import java.util.Objects;
 
-public class EnemyController extends CharactersController implements StateMachine<EnemyModel, EnemyStates> {
+public class EnemyController extends CharactersController implements StateMachine<EnemyModel, EnemyStates>, PathRequestQueue.Callback {
 
     private Vector2 moveDirection = new Vector2();
     private float speedMultiplier = 40f;
@@ -29,6 +28,15 @@ public class EnemyController extends CharactersController implements StateMachin
     private final float notHeardToPatrolInterval = 3f;
     private float quackInterval = 0f;
 
+    /** Number of triangles in the shadow of an enemy */
+    private static final int SHADOW_SEGMENTS = 14;
+    /** Offset (in pixels) of the shadow center from the body position */
+    private static final float SHADOW_OFFSET_X = 5f;
+    private static final float SHADOW_OFFSET_Y = -5f;
+    private static final float BAT_SHADOW_OFFSET_Y = -100f;
+    private static final Color SHADOW_COLOR = new Color(0f, 0f, 0f, 0.5f);
+    private static final Color FLIES_SHADOW_COLOR = new Color(1f, 0f, 0f, 0.1f);
+
     /*
     FSM
     */
@@ -41,20 +49,24 @@ public class EnemyController extends CharactersController implements StateMachin
     PATHFINDING
     */
     LevelModel board;
-    TileGraph tileGraph;
+    /** Plans the paths of the enemies, a few per frame */
+    PathRequestQueue pathRequests;
+    /** Distances to the player, shared by the chasing enemies */
+    FlowField chaseField;
     TileModel targetTile;
     TileModel currentTile;
     Queue<TileModel> pathQueue = new Queue<>();
-    GraphPath<TileModel> graphPath;
-    PolygonRegion cone;
-    TextureRegion textureRegion;
+    /** Number of neighbouring tiles tried as the start of the requested path */
+    int missedStarts = 0;
     Color coneColor;
     boolean reachedDestination = false;
+    /** Whether the path stops short of the goal, to be planned further once walked */
+    boolean partialPath = false;
     int updatePathCounter = 0;
 
     private Sound quackSound;
 
-    EnemyController(EnemyModel enemy, PlayerModel targetPlayerModel, EnemyStates initState, TileGraph tileGraph, LevelModel board, ArrayList<int[]> waypoints) {
+    EnemyController(EnemyModel enemy, PlayerModel targetPlayerModel, EnemyStates initState, PathRequestQueue pathRequests, FlowField chaseField, LevelModel board, ArrayList<int[]> waypoints) {
         this.model = enemy;
         playerModel = targetPlayerModel;
         this.waypoints = new TileModel[waypoints.size()];
@@ -67,7 +79,8 @@ public class EnemyController extends CharactersController implements StateMachin
 
         this.nextWaypointIndex = 1;
         setInitialState(initState);
-        this.tileGraph = tileGraph;
+        this.pathRequests = pathRequests;
+        this.chaseField = chaseField;
         currentTile = this.waypoints[0];
         this.board = board;
 
@@ -83,55 +96,87 @@ public class EnemyController extends CharactersController implements StateMachin
             listenRadius = 30f;
         }
 
-        textureRegion = new TextureRegion();
         coneColor = new Color(1f,1f,1f,.5f);
-//        cone = new PolygonRegion(new TextureRegion(), null,null);
     }
 
+    /**
+     * Asks for a path to the given tile
+     *
+     * The path is planned by the path request queue, and the enemy keeps following
+     * its current path until the new one arrives.
+     *
+     * @param goalTile The tile to head for
+     */
     public void setGoal(TileModel goalTile) {
-
-        pathQueue.clear();
 //        System.out.println("!!!Path Queue Cleared!!!");
         System.out.println(((EnemyModel) model).getEnemyType() + " " + ((EnemyModel) model).getID());
         System.out.println("Current Tile: " + currentTile.getPosition() + " " + currentTile.getType().toString());
         System.out.println("Goal Tile: " + goalTile.getPosition() + " " + goalTile.getType().toString() + "\n");
 
-        graphPath = tileGraph.findPath(currentTile, goalTile);
-        for (int i = 1; i < graphPath.getCount(); i++) {
-            pathQueue.addLast(graphPath.get(i));
-        }
+        targetTile = goalTile;
+        missedStarts = 0;
+        pathRequests.request(this, currentTile, goalTile, getPathPriority(), this);
+    }
 
-        if (pathQueue.isEmpty()){
-            System.out.println("missed bottom");
-                graphPath = tileGraph.findPath(board.getTileState(model.getPosition().x, model.getPosition().y-64), goalTile);
-            for (int i = 1; i < graphPath.getCount(); i++) {
-                pathQueue.addLast(graphPath.get(i));
-            }
-        }
-        if (pathQueue.isEmpty()){
-            System.out.println("missed left");
-            graphPath = tileGraph.findPath(board.getTileState(model.getPosition().x-64, model.getPosition().y), goalTile);
-            for (int i = 1; i < graphPath.getCount(); i++) {
-                pathQueue.addLast(graphPath.get(i));
-            }
+    /**
+     * Returns the priority of the path requests of the enemy (lower first)
+     */
+    private int getPathPriority() {
+        switch (currentState) {
+            case CHASE:
+                return 0;
+            case QUESTION:
+                return 1;
+            default:
+                return 2;
         }
-        if (pathQueue.isEmpty()){
-            System.out.println("missed top");
-            graphPath = tileGraph.findPath(board.getTileState(model.getPosition().x, model.getPosition().y+64), goalTile);
-            for (int i = 1; i < graphPath.getCount(); i++) {
-                pathQueue.addLast(graphPath.get(i));
-            }
+    }
+
+    /**
+     * Receives a path asked for by setGoal
+     *
+     * If there is no path from the tile of the enemy (when it is pushed against an
+     * obstacle), the tiles below, left, above and right of it are tried in turn.
+     */
+    @Override
+    public void pathFound(TileModel startTile, TileModel endTile, GraphPath<TileModel> path) {
+        if (endTile != targetTile) {
+            return;
         }
-        if (pathQueue.isEmpty()){
-            System.out.println("missed right");
-            graphPath = tileGraph.findPath(board.getTileState(model.getPosition().x+64, model.getPosition().y), goalTile);
-            for (int i = 1; i < graphPath.getCount(); i++) {
-                pathQueue.addLast(graphPath.get(i));
+        if (path.getCount() <= 1 && missedStarts < 4) {
+            float x = model.getPosition().x;
+            float y = model.getPosition().y;
+            TileModel start;
+            switch (missedStarts) {
+                case 0:
+                    System.out.println("missed bottom");
+                    start = board.getTileState(x, y - 64);
+                    break;
+                case 1:
+                    System.out.println("missed left");
+                    start = board.getTileState(x - 64, y);
+                    break;
+                case 2:
+                    System.out.println("missed top");
+                    start = board.getTileState(x, y + 64);
+                    break;
+                default:
+                    System.out.println("missed right");
+                    start = board.getTileState(x + 64, y);
+                    break;
             }
+            missedStarts++;
+            pathRequests.request(this, start, endTile, getPathPriority(), this);
+            return;
         }
 
+        pathQueue.clear();
+        for (int i = 1; i < path.getCount(); i++) {
+            pathQueue.addLast(path.get(i));
+        }
+        partialPath = pathQueue.notEmpty() && pathQueue.last() != endTile;
+        reachedDestination = false;
         setMoveDirection();
-        targetTile = goalTile;
     }
 
     private void checkWaypointCollision() {
@@ -147,68 +192,22 @@ public class EnemyController extends CharactersController implements StateMachin
     public void draw(GameCanvas canvas, EnemyModel enemy){
         boolean drawVisionCone = false;
         // Draw shadow
-        short[] indices = new short[3];
-        indices[0] = 0;
-        indices[1] = 1;
-        indices[2] = 2;
-
-        Vector2 rayStart;
-        if(Objects.equals(enemy.getEnemyType(), "bat")){
-            rayStart = enemy.getBody().getPosition().cpy().add(3.5f, -5f);
-        }else{
-            rayStart = enemy.getBody().getPosition().cpy().add(3.5f, 4.5f);
-        }
-        int numRays = 15; // Number of segments for circle
-        float deltaAngle = 360f / (numRays - 1); // Angle between each segment
-
-        float angle = 0;
-        Vector2 dir = new Vector2(1, 0);
-        Vector2 rayDirection = dir.cpy().rotateDeg(angle);
-        Vector2 rayEnd = rayStart.cpy().add(rayDirection.scl(enemy.getRadius())); // Calculate end point of the ray
-        Vector2 rayPrevious = rayEnd.cpy();
-        Vector2 ray1, ray2, ray3;
-
-        for (int i = 1; i < numRays; i++) {
-            angle += deltaAngle;
-            rayDirection = dir.cpy().rotateDeg(angle);
-            rayEnd = rayStart.cpy().add(rayDirection.scl(enemy.getRadius()));
-
-            ray1 = rayStart.cpy().scl(10).add(-100, -100);
-            ray2 = rayPrevious.cpy().scl(10).add(-100, -100);
-            ray3 = rayEnd.cpy().scl(10).add(-100, -100);
-
-            float[] vertices = {ray1.x, ray1.y, ray2.x, ray2.y, ray3.x, ray3.y};
-            PolygonRegion cone = new PolygonRegion(new TextureRegion(), vertices, indices);
-            if(Objects.equals(enemy.getEnemyType(), "flies")){
-                canvas.draw(cone, new Color(255f, 0f, 0f, 0.1f), 70, 50 ,0);
-            }else{
-                canvas.draw(cone, new Color(0f, 0f, 0f, 0.5f), 70, 50 ,0);
-            }
-
-            rayPrevious = rayEnd.cpy();
-        }
+        Vector2 position = enemy.getPosition();
+        float shadowX = position.x + SHADOW_OFFSET_X;
+        float shadowY = position.y + (Objects.equals(enemy.getEnemyType(), "bat") ? BAT_SHADOW_OFFSET_Y : SHADOW_OFFSET_Y);
+        Color shadowColor = Objects.equals(enemy.getEnemyType(), "flies") ? FLIES_SHADOW_COLOR : SHADOW_COLOR;
+        canvas.drawCircle(shadowColor, shadowX, shadowY, enemy.getRadius() * 10, SHADOW_SEGMENTS);
 
         if (drawVisionCone){
             // Draw vision cones
             for (EnemyModel.Vector2Triple t : ((EnemyModel) model).getTriangles()) {
-                float[] vertices = {t.first.x, t.first.y, t.second.x, t.second.y, t.third.x, t.third.y};
-                short[] indices_c = new short[3];
-                indices_c[0] = 0;
-                indices_c[1] = 1;
-                indices_c[2] = 2;
-                cone = new PolygonRegion(textureRegion, vertices, indices_c);
-                canvas.draw(cone, coneColor, 100, 100 ,0);
+                canvas.drawTriangle(coneColor, t.first.x + 100, t.first.y + 100, t.second.x + 100, t.second.y + 100, t.third.x + 100, t.third.y + 100);
             }
             ((EnemyModel) model).getTriangles().clear();
         }
 
         // Draw enemy
         String direction = getDirection(model.getVelocity().x,model.getVelocity().y, previousDirection);
-        if (((EnemyModel) model).getID() == 1) {
-            angle = (float) Math.toDegrees(Math.atan2(model.getVelocity().y,model.getVelocity().x));
-//            System.out.println(angle);
-//            System.out.println(direction);
-        }
 //        model.resetFilmStrip(model.getFilmStrip(direction));
         processRun(direction);
         if (enemy.getVelocity().x == 0 && enemy.getVelocity().y ==0){
@@ -218,12 +217,6 @@ public class EnemyController extends CharactersController implements StateMachin
                 enemy.drawCharacter(canvas, (float) Math.toDegrees(model.getRotation()), Color.WHITE, "idle", direction);
             }
         } else{
-            if (((EnemyModel) model).getID() == 1) {
-                angle = (float) Math.toDegrees(Math.atan2(model.getVelocity().y,model.getVelocity().x));
-//            System.out.println(angle);
-//                System.out.println("actual:");
-//                System.out.println(direction);
-            }
             if(Objects.equals(enemy.getEnemyType(), "flies")){
                 enemy.drawCharacter(canvas, 1, (float) Math.toDegrees(model.getRotation()), Color.RED, "running", direction);
             }else{
@@ -244,7 +237,8 @@ public class EnemyController extends CharactersController implements StateMachin
             moveDirection = new Vector2(nextTile.getPosition().x - 32 - model.getPosition().x, nextTile.getPosition().y - 32 - model.getPosition().y).nor();
         }
 
-        else {
+        // Not there yet while the rest of the path is still to come
+        else if (!partialPath && !pathRequests.isPending(this)) {
             reachedDestination = true;
         }
     }
@@ -252,6 +246,15 @@ public class EnemyController extends CharactersController implements StateMachin
 
     @Override
     public void update() {
+        update(Gdx.graphics.getDeltaTime());
+    }
+
+    /**
+     * Advances the enemy by one simulation step
+     *
+     * @param dt Number of seconds simulated by this step
+     */
+    public void update(float dt) {
 
         // Update enemy's current tile
         currentTile = board.getTileState(model.getPosition().x, model.getPosition().y);
@@ -321,7 +324,7 @@ public class EnemyController extends CharactersController implements StateMachin
                 }
 
                 else {
-                    currentListenInterval -= Gdx.graphics.getDeltaTime();
+                    currentListenInterval -= dt;
 
                     lookAround();
 
@@ -339,9 +342,7 @@ public class EnemyController extends CharactersController implements StateMachin
                 playQuack(true);
                 if (updatePathCounter > 30) {
                     if (Objects.equals(((EnemyModel) model).getEnemyType(), "duck")) {
-                        if (modelPositionToTile(playerModel).getType() != TileModel.TileType.OBSTACLE) {
-                            setGoal(modelPositionToTile(playerModel));
-                        }
+                        // The path to the player comes from the chase field
                         float dist = Vector2.dst(
                                 model.getBody().getPosition().x,
                                 model.getBody().getPosition().y,
@@ -378,9 +379,6 @@ public class EnemyController extends CharactersController implements StateMachin
                             alertNeighborEnemies();
                         }
                     }else if(Objects.equals(((EnemyModel) model).getEnemyType(), "flies")){
-                        if (modelPositionToTile(playerModel).getType() != TileModel.TileType.OBSTACLE) {
-                            setGoal(modelPositionToTile(playerModel));
-                        }
                         speedMultiplier = 70;
                         alertNeighborEnemies();
                     }
@@ -393,8 +391,15 @@ public class EnemyController extends CharactersController implements StateMachin
                 break;
         }
 
-        checkWaypointCollision();
-        setMoveDirection();
+        if (currentState == EnemyStates.CHASE && !Objects.equals(((EnemyModel) model).getEnemyType(), "bat")) {
+            steerByField();
+        } else {
+            checkWaypointCollision();
+            if (pathQueue.isEmpty() && partialPath && !pathRequests.isPending(this)) {
+                setGoal(targetTile);
+            }
+            setMoveDirection();
+        }
 
         model.setPosition(model.getBody().getPosition().scl(10));
         currentState = ((EnemyModel) model).getCurrentState();
@@ -481,6 +486,27 @@ public class EnemyController extends CharactersController implements StateMachin
         // TODO: Look around at random directions
     }
 
+    /**
+     * Heads for the next tile toward the player on the chase field
+     *
+     * In the cell of the player, the enemy heads straight for it.  Where the player
+     * cannot be reached, the enemy keeps its current direction.
+     */
+    private void steerByField() {
+        pathQueue.clear();
+        pathRequests.cancel(this);
+        partialPath = false;
+        reachedDestination = false;
+        float x = model.getPosition().x;
+        float y = model.getPosition().y;
+        TileModel nextTile = chaseField.next(x, y);
+        if (nextTile != null) {
+            moveDirection.set(nextTile.getPosition().x - 32 - x, nextTile.getPosition().y - 32 - y).nor();
+        } else if (chaseField.isAtTarget(x, y)) {
+            moveDirection.set(playerModel.getPosition()).sub(x, y).nor();
+        }
+    }
+
     private void moveToNextTile() {
         Vector2 vel = moveDirection.cpy();
         vel.scl(speedMultiplier);
@@ -56,6 +56,7 @@ public class GDXRoot extends Game implements ScreenListener {
 
 	@Override
 	public void render(){
+		canvas.beginFrame();
 		// Update the game state
 		switch (mode){
 			case "loading":
@@ -65,9 +66,10 @@ public class GDXRoot extends Game implements ScreenListener {
 				levelselect.render(60);
 				break;
 			case "playing":
-				playing.update(60);
+				playing.update(Gdx.graphics.getDeltaTime());
 		}
 		// Draw the game
+		canvas.endFrame();
 
 	}
 
@@ -167,23 +169,9 @@ public class GDXRoot extends Game implements ScreenListener {
 			mode = "levelselect";
 			levelselect.playmusic();
 		} else if (screen == playing && playing.isRetry()) {
+			// The level is reset in place, without going through the loading screen
 			playing.resetButton();
-			playing.pausemusic();
-
-			levelselect.setScreenListener(this);
-			setScreen(levelselect);
-			mode = "levelselect";
-			levelselect.playmusic();
-			if (levelselect.xbox != null){
-				levelselect.drawloadSneaky();
-				levelselect.loadtime=0;
-				levelselect.loadNext = true;
-				levelselect.loading = false;
-			}else{
-				levelselect.loading = true;
-				new Thread(levelselect.load).start();
-			}
-
+			playing.resetLevel();
 		}else if (screen == playing && playing.isNext()) {
 			playing.resetButton();
 			playing.pausemusic();
@@ -24,13 +24,18 @@ import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.JsonValue;
 import com.redpacts.frostpurge.game.models.*;
 import com.redpacts.frostpurge.game.models.ButtonBox;
+import com.redpacts.frostpurge.game.util.DepthDrawList;
 import com.redpacts.frostpurge.game.util.EnemyStates;
 import com.redpacts.frostpurge.game.util.FilmStrip;
+import com.redpacts.frostpurge.game.util.FlowField;
+import com.redpacts.frostpurge.game.util.HierarchicalPathfinder;
+import com.redpacts.frostpurge.game.util.JumpPointPathfinder;
+import com.redpacts.frostpurge.game.util.PathRequestQueue;
 import com.redpacts.frostpurge.game.util.ScreenListener;
 import com.redpacts.frostpurge.game.util.TileGraph;
 import com.redpacts.frostpurge.game.views.GameCanvas;
+import com.redpacts.frostpurge.game.views.TileChunkCache;
 
-import java.util.Comparator;
 import java.util.Objects;
 
 public class GameMode implements Screen, InputProcessor {
@@ -118,6 +123,8 @@ public class GameMode implements Screen, InputProcessor {
 
     /** Board for the game*/
     private LevelModel currentLevel;
+    /** Baked geometry of the ground layers of the current level */
+    private TileChunkCache groundCache;
     /** Player for the game*/
     private PlayerModel playerModel;
 
@@ -126,8 +133,11 @@ public class GameMode implements Screen, InputProcessor {
 
     public static Array<EnemyController> enemyControllers;
 
-    private Comparator<GameObject> comparator;
     private Array<GameObject> drawble;
+    /** Persistent depth order of the objects of the current level */
+    private DepthDrawList drawList;
+    /** Cache of the tiles shown by the debug overlay */
+    private Array<TileModel> debugTiles;
 
     private Array<EnemyModel> enemies;
     private Array<BouncyTile> bouncy;
@@ -136,6 +146,12 @@ public class GameMode implements Screen, InputProcessor {
     private Array<ButtonBox> buttons = new Array<>();;
 
     private TileGraph groundedTileGraph = new TileGraph();
+    /** Distances to the player, shared by the chasing enemies */
+    private FlowField chaseField;
+    /** Plans the long routes of the enemies over clusters of the grounded graph */
+    private HierarchicalPathfinder groundedPathfinder;
+    /** Plans the paths requested by the enemies, within a budget per frame */
+    private PathRequestQueue pathRequests;
 //    private TileGraph ignoreCollisionsTileGraph = new TileGraph();
 
     private Texture statusBarBGTexture;
@@ -148,6 +164,23 @@ public class GameMode implements Screen, InputProcessor {
     private Vector2 cameraTarget;
     private Vector2 cameraPosition;
     private int cameraShakeDuration = 0;
+    /** Camera position at the start of the last simulation step */
+    private Vector2 previousCameraPosition;
+    /** Camera position interpolated for rendering */
+    private Vector2 renderCameraPosition;
+
+    /** Length of a simulation step, in seconds */
+    private static final float STEP = CollisionController.WORLD_STEP;
+    /** Maximum number of simulation steps taken in a single frame */
+    private static final int MAX_STEPS = 5;
+    /** File the physics telemetry is dumped to (local storage) */
+    private static final String TELEMETRY_FILE = "physics-telemetry.csv";
+    /** System property choosing the pathfinder within a cluster ("astar" or "jps") */
+    public static final String PATHFINDER_PROPERTY = "frostpurge.pathfinder";
+    /** Simulated time not yet consumed by a step */
+    private float accumulator;
+    /** Positions of the player and the enemies at the start of the last step (x, y pairs) */
+    private float[] previousPositions;
     private float zoom;
     private float scale;
     private float sx;
@@ -242,32 +275,12 @@ public class GameMode implements Screen, InputProcessor {
         this.buttons.add(nextButton);
 
         this.healthBarColor = new Color();
+        this.cameraTarget = new Vector2();
+        this.previousCameraPosition = new Vector2();
+        this.renderCameraPosition = new Vector2();
 
         this.drawble = new Array<GameObject>();
-        this.comparator = new Comparator<GameObject>() {
-            public int compare(GameObject o1, GameObject o2) {
-                float o1y;
-                float o2y;
-                if (o1 instanceof TileModel){
-                    o1y = o1.getPositionY() + (((TileModel) o1).base-3) *64;
-                } else{
-                    o1y = o1.getPositionY();
-                }
-                if (o2 instanceof TileModel){
-                    o2y = o2.getPositionY() + (((TileModel) o2).base-3) *64;
-                } else{
-                    o2y = o2.getPositionY();
-                }
-                float diff = o1y - o2y;
-                if(diff > 0){
-                    return 1;
-                }else if(diff == 0){
-                    return 0;
-                }else{
-                    return -1;
-                }
-            }
-        };
+        this.debugTiles = new Array<TileModel>();
         // Null out all pointers, 0 out all ints, etc.
         controllerTime = new float[]{0};
     }
@@ -361,65 +374,9 @@ public class GameMode implements Screen, InputProcessor {
 
     @Override
     public void dispose() {
-
-    }
-
-    public void sort_by_y(Array<GameObject> obj_list) {
-        obj_list.sort(comparator);
-    }
-
-    private void populateGroundedTileGraph() {
-        for (int i = 0; i < currentLevel.getWidth(); i++) {
-            for (int j = 0; j < currentLevel.getHeight(); j++) {
-                TileModel currentTile;
-
-                if (currentLevel.getExtraLayer()[j][i] == null) {
-                    groundedTileGraph.addTile(currentLevel.getBaseLayer()[j][i]);
-                    currentTile = currentLevel.getBaseLayer()[j][i];
-                }
-
-                else if (currentLevel.getExtraLayer()[j][i].getType() == TileModel.TileType.SWAMP
-                        || currentLevel.getExtraLayer()[j][i].getType() == TileModel.TileType.DESTRUCTIBLE) {
-                    groundedTileGraph.addTile(currentLevel.getBaseLayer()[j][i]);
-                    groundedTileGraph.addTile(currentLevel.getExtraLayer()[j][i]);
-
-                    currentTile = currentLevel.getBaseLayer()[j][i];
-                }
-
-                else if (currentLevel.getExtraLayer()[j][i].getType() != TileModel.TileType.OBSTACLE) {
-                    groundedTileGraph.addTile(currentLevel.getExtraLayer()[j][i]);
-                    currentTile = currentLevel.getExtraLayer()[j][i];
-                }
-
-                else {
-                    continue;
-                }
-
-                for (int x = i - 1; x <= i + 1; x++) {
-                    for (int y = j - 1; y <= j + 1; y++) {
-                        if (Math.abs((x - i) + (y - j)) == 1 && currentLevel.inBounds(x, y)) {
-                            if (currentLevel.getExtraLayer()[y][x] == null) {
-                                groundedTileGraph.connectTiles(currentTile, currentLevel.getBaseLayer()[y][x]);
-                            }
-
-                            else if (currentLevel.getExtraLayer()[y][x].getType() == TileModel.TileType.SWAMP
-                            || currentLevel.getExtraLayer()[y][x].getType() == TileModel.TileType.DESTRUCTIBLE) {
-                                groundedTileGraph.connectTiles(currentTile, currentLevel.getBaseLayer()[y][x]);
-                                groundedTileGraph.connectTiles(currentTile, currentLevel.getExtraLayer()[y][x]);
-
-                                if (currentLevel.getExtraLayer()[j][i] != null) {
-                                    groundedTileGraph.connectTiles(currentLevel.getExtraLayer()[j][i], currentLevel.getBaseLayer()[y][x]);
-                                    groundedTileGraph.connectTiles(currentLevel.getExtraLayer()[j][i], currentLevel.getExtraLayer()[y][x]);
-                                }
-                            }
-
-                            else if (currentLevel.getExtraLayer()[y][x].getType() != TileModel.TileType.OBSTACLE) {
-                                groundedTileGraph.connectTiles(currentTile, currentLevel.getExtraLayer()[y][x]);
-                            }
-                        }
-                    }
-                }
-            }
+        if (groundCache != null){
+            groundCache.dispose();
+            groundCache = null;
         }
     }
 
@@ -536,6 +493,7 @@ public class GameMode implements Screen, InputProcessor {
         } else if (inputController.didPause() || pressState == 6) {
             if (gameState == GameState.PLAY) {
                 gameState = GameState.PAUSE;
+                canvas.clearSnapshot();
 //                pauseButton.resize("up");
                 resumeButton.resize("up");
                 retryPauseButton.resize("down");
@@ -626,114 +584,53 @@ public class GameMode implements Screen, InputProcessor {
         }
 
         if (gameState == GameState.PLAY){
-            if (Gdx.graphics.getDeltaTime() < 0.25) {
-                currentTime -= Gdx.graphics.getDeltaTime();
-                playerModel.addHp(-100 * Gdx.graphics.getDeltaTime() / maxTime);
+            if (delta < 0.25) {
+                currentTime -= delta;
+                playerModel.addHp(-100 * delta / maxTime);
             }
 //            System.out.println(currentTime);
         }
 
-
-        drawble.clear();
-        float playerX = playerModel.getPosition().x;
-        float playerY = playerModel.getPosition().y;
-        for (int i = 0; i<currentLevel.getHeight();i++){
-            for (int j = 0; j<currentLevel.getWidth();j++){
-                TileModel accentTile = currentLevel.getAccentLayer()[i][j];
-                TileModel extraTile = currentLevel.getExtraLayer()[i][j];
-                if(accentTile!=null){
-                    float dst2 = (float) (Math.pow(accentTile.getPosition().x-playerX, 2) + Math.pow(accentTile.getPosition().y-playerY, 2));
-                    if(Math.sqrt(dst2) <= 1400){
-                        drawble.add(accentTile);
-                    }
-                }
-                if(extraTile!=null){
-                    float dst2 = (float) (Math.pow(extraTile.getPosition().x-playerX, 2) + Math.pow(extraTile.getPosition().y-playerY, 2));
-                    if(Math.sqrt(dst2) <= 1400){
-                        drawble.add(extraTile);
-                    }
-                }
-            }
-        }
-
-        drawble.add(playerModel);
-        drawble.add(goal);
-        drawble.addAll(enemies);
-        drawble.addAll(bouncy);
-        drawble.addAll(breakables);
-        sort_by_y(drawble);
-        drawble.reverse();
-
         // Toggle debug mode
         if (inputController.didDebug()) {
             debug = !debug;
         }
-
-        if (gameState == GameState.PLAY){
-            playerController.update(inputController.getHorizontal(), inputController.getVertical(), inputController.didDecelerate(), inputController.didBoost(), inputController.didVacuum());
-            for (EnemyController enemyController : enemyControllers) {
-                enemyController.update();
-            }
-            collisionController.update();
+        // Toggle render statistics
+        if (inputController.didToggleStats()) {
+            canvas.getStats().setEnabled(!canvas.getStats().isEnabled());
+        }
+        // Dump the physics telemetry of the last steps
+        if (inputController.didDumpTelemetry()) {
+            collisionController.getTelemetry().writeCsv(Gdx.files.local(TELEMETRY_FILE));
         }
 
+        simulate(delta);
+
         Gdx.gl.glClearColor(1f, 1f, 1f, 1.0f);  // Homage to the XNA years
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
         canvas.begin();
 
         // Camera Movement
-        //Vector2 cameraPos = playerController.cameraOffsetPos();
-//        canvas.center(camera, (float) (playerModel.getPosition().x+Math.random()*10), (float) (playerModel.getPosition().y+Math.random()*10));
-        if(playerModel.getShake()){
-            playerModel.setShake(false);
-            cameraShakeDuration += 10;
-        }
-        cameraTarget = playerModel.getPosition().cpy().add(playerModel.getBody().getLinearVelocity().cpy().scl(4f));
-        if(cameraShakeDuration > 0){
-            cameraShakeDuration--;
-            cameraTarget.x += (float) (200f * (1-2*Math.random()));
-            cameraTarget.y += (float) (200f * (1-2*Math.random()));
-        }
-        cameraPosition = cameraPosition.scl(0.9f).add(cameraTarget.scl(0.1f));
-        canvas.center(camera, cameraPosition.x, cameraPosition.y);
+        canvas.center(camera, renderCameraPosition.x, renderCameraPosition.y);
         camera.zoom = 1/scale;
 //        board.draw(canvas);
 //        playerController.draw(canvas, inputController.getHorizontal(), inputController.getVertical());
 //        enemyController.draw(canvas);
 
-        for (int i = 0; i<currentLevel.getHeight();i++){
-            for (int j = 0; j<currentLevel.getWidth();j++){
-                currentLevel.drawTile(currentLevel.getBaseLayer()[i][j],canvas);
-                currentLevel.drawTile(currentLevel.getBase2Layer()[i][j],canvas);
-            }
-        }
-        int i = 0;
-        for(GameObject object: drawble){
-            if(object instanceof PlayerModel){
-                playerController.draw(canvas, inputController.getHorizontal(), inputController.getVertical(),false);
-            } else if(object instanceof EnemyModel){
-                enemyControllers.get(i).draw(canvas,(EnemyModel) object);
-                i++;
-            } else if (object instanceof GoalTile) {
-                currentLevel.drawGoal((GoalTile) object, canvas);
-            } else if (object instanceof BreakableTile) {
-                currentLevel.drawBreakable((BreakableTile) object, canvas);
-            } else if (object instanceof BouncyTile) {
-                currentLevel.drawBouncy((BouncyTile) object, canvas);
-            } else if (object instanceof ObstacleTile || object instanceof EmptyTile || object instanceof SwampTile){
-                currentLevel.drawTile((TileModel) object, canvas);
-            }
-        }
+        drawBaseLayers();
+        drawObjects();
 
         canvas.end();
 
         if (debug) {
 //            System.out.println(delta);
             canvas.beginDebug();
-            for (int ii = 0; ii < currentLevel.getHeight(); ii++){
-                for (int jj = 0; jj < currentLevel.getWidth(); jj++){
-                    currentLevel.drawDebug(currentLevel.getExtraLayer()[ii][jj], canvas);
-                }
+            float halfWidth = camera.viewportWidth * camera.zoom / 2;
+            float halfHeight = camera.viewportHeight * camera.zoom / 2;
+            currentLevel.queryRect(camera.position.x - halfWidth, camera.position.y - halfHeight,
+                    camera.position.x + halfWidth, camera.position.y + halfHeight, debugTiles);
+            for (TileModel tile : debugTiles){
+                currentLevel.drawDebug(tile, canvas);
             }
 
             for (EnemyModel enemy : enemies) {
@@ -774,10 +671,133 @@ public class GameMode implements Screen, InputProcessor {
         }
         font.setColor(Color.BLACK);
         canvas.drawTextHUD(scoreToTime(maxTime-currentTime), font, 1150*scale, 1000*scale, HUDcamera);
+        if (canvas.getStats().isEnabled()) {
+            font.getData().setScale(0.35f*scale);
+            canvas.drawTextHUD(canvas.getStats().summary(), font, 20*scale, canvas.getHeight() - 20*scale, HUDcamera);
+            canvas.drawTextHUD(collisionController.getTelemetry().summary(), font, 20*scale, canvas.getHeight() - 45*scale, HUDcamera);
+        }
+    }
+
+    /**
+     * Advances the simulation by the time elapsed since the last frame.
+     *
+     * The simulation always moves in steps of STEP seconds, so gameplay does not
+     * depend on the frame rate.  Time left over is kept for the next frame, and at
+     * most MAX_STEPS steps are taken per frame, so a long stall is dropped instead
+     * of snowballing.  Characters and the camera are then drawn between their last
+     * two simulated states.
+     *
+     * @param delta Number of seconds since the last frame
+     */
+    private void simulate(float delta) {
+        // Changes to the map are reported once per frame
+        currentLevel.clearDirtyRegions();
+        accumulator += delta;
+        int steps = 0;
+        while (accumulator >= STEP && steps < MAX_STEPS) {
+            saveSimulationState();
+            if (gameState == GameState.PLAY){
+                playerController.update(inputController.getHorizontal(), inputController.getVertical(), inputController.didDecelerate(), inputController.didBoost(), inputController.didVacuum());
+                // Searched again only when the player changes tile and an enemy is chasing
+                chaseField.setTarget(playerModel.getPosition().x, playerModel.getPosition().y);
+                for (int i = 0; i < enemyControllers.size; i++) {
+                    // Enemies in sleeping regions are parked
+                    if (enemies.get(i).getBody().isActive()) {
+                        enemyControllers.get(i).update(STEP);
+                    }
+                }
+                collisionController.update(STEP);
+            }
+            updateCamera();
+            accumulator -= STEP;
+            steps++;
+        }
+        if (accumulator >= STEP) {
+            accumulator %= STEP;
+        }
+        // Plan the paths the enemies asked for, within the budget of the frame
+        if (gameState == GameState.PLAY) {
+            pathRequests.process();
+        }
+        interpolate(accumulator / STEP);
+    }
+
+    /**
+     * Moves the camera towards the player by one simulation step
+     */
+    private void updateCamera() {
+        if(playerModel.getShake()){
+            playerModel.setShake(false);
+            cameraShakeDuration += 10;
+        }
+        cameraTarget.set(playerModel.getPosition()).mulAdd(playerModel.getBody().getLinearVelocity(), 4f);
+        if(cameraShakeDuration > 0){
+            cameraShakeDuration--;
+            cameraTarget.x += (float) (200f * (1-2*Math.random()));
+            cameraTarget.y += (float) (200f * (1-2*Math.random()));
+        }
+        cameraPosition.scl(0.9f).mulAdd(cameraTarget, 0.1f);
+    }
+
+    /**
+     * Records the state of the characters and camera before a simulation step.
+     *
+     * Positions may still hold interpolated values from the last frame, so they are
+     * first put back on their bodies.  This keeps the simulation independent of
+     * the rendering.
+     */
+    private void saveSimulationState() {
+        savePosition(playerModel, 0);
+        for (int i = 0; i < enemies.size; i++) {
+            savePosition(enemies.get(i), i + 1);
+        }
+        previousCameraPosition.set(cameraPosition);
+    }
+
+    private void savePosition(GameObject model, int index) {
+        Vector2 body = model.getBody().getPosition();
+        model.getPosition().set(body.x * 10, body.y * 10);
+        previousPositions[2 * index] = body.x * 10;
+        previousPositions[2 * index + 1] = body.y * 10;
+    }
+
+    /**
+     * Places the characters and camera between the last two simulated states
+     *
+     * @param alpha Fraction of a step simulated past the previous state
+     */
+    private void interpolate(float alpha) {
+        interpolatePosition(playerModel, 0, alpha);
+        for (int i = 0; i < enemies.size; i++) {
+            interpolatePosition(enemies.get(i), i + 1, alpha);
+        }
+        renderCameraPosition.set(previousCameraPosition).lerp(cameraPosition, alpha);
+    }
+
+    private void interpolatePosition(GameObject model, int index, float alpha) {
+        Vector2 body = model.getBody().getPosition();
+        float x = previousPositions[2 * index];
+        float y = previousPositions[2 * index + 1];
+        model.getPosition().set(x + (body.x * 10 - x) * alpha, y + (body.y * 10 - y) * alpha);
+    }
+
+    /**
+     * Draws the frozen game behind the pause menu.
+     *
+     * The scene does not change while paused, so it is rendered once into a
+     * snapshot on the first paused frame, and only that texture is drawn after.
+     */
+    private void drawFrozenGame(){
+        if (!canvas.hasSnapshot()){
+            canvas.beginSnapshot();
+            drawGame();
+            canvas.endSnapshot();
+        }
+        canvas.drawSnapshot(HUDcamera);
     }
 
     public void drawPauseScreen(){
-        drawGame();
+        drawFrozenGame();
 //        if (scale == 1){
 //            canvas.center(camera, canvas.getWidth()/2, canvas.getHeight()/2);
 //            pauseScreen.center(camera, canvas.getWidth()/2, canvas.getHeight()/2);
@@ -815,30 +835,42 @@ public class GameMode implements Screen, InputProcessor {
         canvas.drawUI(retryPauseButton.getTexture(),bounds.x*scale, bounds.y*scale, bounds.getWidth()*scale, bounds.getHeight()*scale,HUDcamera);
     }
     public void drawPauseAnimation(){
-        drawGame();
+        drawFrozenGame();
         canvas.drawBackgroundAnimationHUD(pauseAnimation, 0, 0,HUDcamera);
 //
     }
-    public void drawGame(){
-        canvas.begin();
-        canvas.center(camera, playerModel.getPosition().x, playerModel.getPosition().y);
-        camera.zoom = 1/scale;
-//        board.draw(canvas);
-//        playerController.draw(canvas, inputController.getHorizontal(), inputController.getVertical());
-//        enemyController.draw(canvas);
-        for (int i = 0; i<currentLevel.getHeight();i++){
-            for (int j = 0; j<currentLevel.getWidth();j++){
-                currentLevel.drawTile(currentLevel.getBaseLayer()[i][j],canvas);
-                currentLevel.drawTile(currentLevel.getBase2Layer()[i][j],canvas);
+    /**
+     * Draws the two ground layers, skipping every chunk outside of the camera view.
+     *
+     * The ground never changes after loading, so it is baked into a chunked
+     * sprite cache and only the chunks on screen are drawn.
+     */
+    private void drawBaseLayers(){
+        // The cache is (re)built here since loadLevel may run off the rendering thread
+        if (groundCache == null || groundCache.getLevel() != currentLevel){
+            if (groundCache != null){
+                groundCache.dispose();
             }
+            groundCache = new TileChunkCache(currentLevel);
         }
-        int i = 0;
+        canvas.draw(groundCache, currentLevel.getVisibleTileRange(camera));
+    }
+
+    /**
+     * Draws the tiles, characters and props of the level back to front.
+     *
+     * The draw order comes from the persistent depth list of the level, so only
+     * the moving objects are sorted every frame.
+     */
+    private void drawObjects(){
+        drawList.refresh(currentLevel.getDirtyRegions());
+        drawList.fill(drawble, currentLevel.getVisibleTileRange(camera));
         for(GameObject object: drawble){
             if(object instanceof PlayerModel){
                 playerController.draw(canvas, inputController.getHorizontal(), inputController.getVertical(),false);
             } else if(object instanceof EnemyModel){
-                enemyControllers.get(i).draw(canvas,(EnemyModel) object);
-                i++;
+                // Controllers are created in the same order as the enemies of the level
+                enemyControllers.get(enemies.indexOf((EnemyModel) object, true)).draw(canvas,(EnemyModel) object);
             } else if (object instanceof GoalTile) {
                 currentLevel.drawGoal((GoalTile) object, canvas);
             } else if (object instanceof BreakableTile) {
@@ -849,6 +881,17 @@ public class GameMode implements Screen, InputProcessor {
                 currentLevel.drawTile((TileModel) object, canvas);
             }
         }
+    }
+
+    public void drawGame(){
+        canvas.begin();
+        canvas.center(camera, renderCameraPosition.x, renderCameraPosition.y);
+        camera.zoom = 1/scale;
+//        board.draw(canvas);
+//        playerController.draw(canvas, inputController.getHorizontal(), inputController.getVertical());
+//        enemyController.draw(canvas);
+        drawBaseLayers();
+        drawObjects();
         canvas.end();
     }
 
@@ -1008,35 +1051,82 @@ public class GameMode implements Screen, InputProcessor {
         currentTime = maxTime;
         currentLevel.setName(level);
 
-        populateGroundedTileGraph();
+        // A fresh graph per level, so the pathfinder is sized to this level's tiles
+        groundedTileGraph = TileGraph.buildGrounded(currentLevel);
+        chaseField = new FlowField(currentLevel);
+        if ("jps".equals(System.getProperty(PATHFINDER_PROPERTY))) {
+            groundedPathfinder = new HierarchicalPathfinder(currentLevel, new JumpPointPathfinder(currentLevel));
+        } else {
+            groundedPathfinder = new HierarchicalPathfinder(currentLevel, groundedTileGraph);
+        }
+        pathRequests = new PathRequestQueue(groundedPathfinder);
 //        populateIgnoreCollisionsTileGraph();
 
+        camera = new OrthographicCamera();
+        camera.setToOrtho(false, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+        pauseCamera = new OrthographicCamera();
+        pauseCamera.setToOrtho(false, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+//        System.out.println(camera.zoom);
+//        System.out.println(camera.zoom);
+//        System.out.println(scale);
+        HUDcamera = new OrthographicCamera();
+        HUDcamera.setToOrtho(false, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+        // The previous world is not needed anymore
+        if (collisionController != null) {
+            collisionController.dispose();
+        }
+        collisionController = new CollisionController(currentLevel, playerModel, enemies, bouncy, breakables, goal, canvas.getWidth(), canvas.getHeight(),directory,0.15f * LevelSelectMode.volumeBar.getValue());
+        startLevel();
+    }
+
+    /**
+     * Restarts the current level in place.
+     *
+     * Unlike loadLevel, this keeps the tile layers, the navigation graph and the
+     * Box2D world with the bodies of the tiles.  Only the vacuumed swamps are put
+     * back, and the player, the enemies and the props are created again with new
+     * bodies, so a retry starts almost instantly.
+     */
+    public void resetLevel(){
+        gameState = GameState.PLAY;
+        JsonValue leveljson = directory.getEntry(currentLevel.getName(), JsonValue.class);
+        levelController.resetLevel(currentLevel, leveljson, directory);
+        playerModel = currentLevel.getPlayer();
+        goal = currentLevel.getGoal();
+        currentTime = maxTime;
+
+        collisionController.reset(playerModel, goal);
+        startLevel();
+    }
+
+    /**
+     * Creates the controllers and resets the simulation for a freshly loaded or reset level
+     */
+    private void startLevel(){
+        drawList = new DepthDrawList(currentLevel);
         playerController = new PlayerController(playerModel);
 
 
+        // Requests of the previous controllers are never answered
+        pathRequests.clear();
         enemyControllers = new Array<>();
         for (int i = 0; i < enemies.size; i++){
 //            for (int j = 0; j<)
 //            enemies.get(i).getWaypoints()
 
-            enemyControllers.add(new EnemyController(enemies.get(i), playerModel, EnemyStates.PATROL, groundedTileGraph,currentLevel,enemies.get(i).getWaypoints()));
+            enemyControllers.add(new EnemyController(enemies.get(i), playerModel, EnemyStates.PATROL, pathRequests,chaseField,currentLevel,enemies.get(i).getWaypoints()));
 //
 //            else {
 //                enemyControllers.add(new EnemyController(enemies.get(i), playerModel, EnemyStates.PATROL, ignoreCollisionsTileGraph,currentLevel,enemies.get(i).getWaypoints()));
 //            }
 
         }
-        camera = new OrthographicCamera();
-        camera.setToOrtho(false, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
-        pauseCamera = new OrthographicCamera();
-        pauseCamera.setToOrtho(false, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
-//        System.out.println(camera.zoom);
-//        System.out.println(camera.zoom);
-//        System.out.println(scale);
-        HUDcamera = new OrthographicCamera();
-        HUDcamera.setToOrtho(false, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
-        cameraPosition = playerModel.getPosition();
-        collisionController = new CollisionController(currentLevel, playerModel, enemies, bouncy, breakables, goal, canvas.getWidth(), canvas.getHeight(),directory,0.15f * LevelSelectMode.volumeBar.getValue());
+        cameraPosition = playerModel.getPosition().cpy();
+        accumulator = 0;
+        canvas.clearSnapshot();
+        previousPositions = new float[2 * (enemies.size + 1)];
+        saveSimulationState();
+        renderCameraPosition.set(cameraPosition);
         pausemusic();
         playing = false;
         playmusic();
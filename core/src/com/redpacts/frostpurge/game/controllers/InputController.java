@@ -48,6 +48,12 @@ public class InputController {
     private boolean replayPressed;
     private boolean pausePressed;
     private boolean previousPausePressed = false;
+    /** Whether the render statistics button was pressed (this frame only) */
+    private boolean statsPressed;
+    private boolean previousStatsPressed = false;
+    /** Whether the physics telemetry dump button was pressed (this frame only) */
+    private boolean telemetryPressed;
+    private boolean previousTelemetryPressed = false;
 
     /** The player position */
     private Vector2 position;
@@ -120,6 +126,18 @@ public class InputController {
         return false;
     }
     public boolean didExit(){return exitPressed;}
+    /**
+     * Returns true if the render statistics button was pressed this frame.
+     *
+     * @return true if the render statistics button was pressed this frame.
+     */
+    public boolean didToggleStats(){return statsPressed;}
+    /**
+     * Returns true if the physics telemetry dump button was pressed this frame.
+     *
+     * @return true if the physics telemetry dump button was pressed this frame.
+     */
+    public boolean didDumpTelemetry(){return telemetryPressed;}
     public boolean didReplay(){return replayPressed;}
     /**
      * Return pausePressed. Pause must be cleared using InputController.clearPausePressed() */
@@ -207,6 +225,12 @@ public class InputController {
             exitPressed = Gdx.input.isKeyPressed(Input.Keys.BACKSPACE);
             debugPressed = Gdx.input.isKeyPressed(Input.Keys.D);
             replayPressed = Gdx.input.isKeyPressed(Input.Keys.R);
+            boolean currentStatsPressed = Gdx.input.isKeyPressed(Input.Keys.F3);
+            statsPressed = currentStatsPressed && !previousStatsPressed;
+            previousStatsPressed = currentStatsPressed;
+            boolean currentTelemetryPressed = Gdx.input.isKeyPressed(Input.Keys.F4);
+            telemetryPressed = currentTelemetryPressed && !previousTelemetryPressed;
+            previousTelemetryPressed = currentTelemetryPressed;
             boolean currentPausePressed = Gdx.input.isKeyPressed(Input.Keys.ESCAPE);
             if (currentPausePressed && !previousPausePressed) {
                 pausePressed = true;
@@ -5,6 +5,7 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.Json;
 import com.badlogic.gdx.utils.JsonValue;
 import com.redpacts.frostpurge.game.assets.AssetDirectory;
+import com.redpacts.frostpurge.game.models.BreakableTile;
 import com.redpacts.frostpurge.game.models.LevelModel;
 import com.redpacts.frostpurge.game.models.TileModel;
 
@@ -28,6 +29,35 @@ public class LevelController {
      * @param theight This is the height of the tileset in tiles
      */
     public LevelModel initializeLevel (JsonValue leveljson, JsonValue tileProperties, TextureRegion[][] tileset, int twidth, int theight, AssetDirectory directory){
+        LevelModel level = initializeTiles(leveljson, tileProperties, tileset, twidth, theight, directory);
+
+        JsonValue characters = leveljson.get("layers").child();
+        for (int i = 0; i < 4; i++) {
+            characters = characters.next();
+        }
+        initializeCharacterLayer(level, characters, directory);
+        level.buildSpatialIndex();
+        level.buildOccupancy();
+
+        return level;
+    }
+
+    /**
+     * Creates a level with only its tile layers, without the characters and props.
+     *
+     * This is the part of a level that does not need the assets of the characters,
+     * so the tools can load it outside of the game.  The spatial index and the
+     * occupancy grid are not built.
+     *
+     * @param leveljson The Json of the level
+     * @param tileProperties The properties of the tiles of the tileset
+     * @param tileset The tiles of the tileset
+     * @param twidth The width of the tileset in tiles
+     * @param theight The height of the tileset in tiles
+     * @param directory The directory of the assets (may be null outside of the game)
+     * @return the level with its tile layers
+     */
+    public LevelModel initializeTiles(JsonValue leveljson, JsonValue tileProperties, TextureRegion[][] tileset, int twidth, int theight, AssetDirectory directory){
         tilesetWidth = twidth;
         tilesetHeight = theight;
         height = leveljson.getInt("height");
@@ -38,17 +68,41 @@ public class LevelController {
         JsonValue layer2 = layer1.next();
         JsonValue layer3 = layer2.next();
         JsonValue layer4 = layer3.next();
-        JsonValue characters = layer4.next();
 
         initializeBaseTileLayer(level, layer1, tileset);
         initializeBase2TileLayer(level,layer2,tileset);
         initializeExtraTileLayer(level, layer3, tileset,tileProperties);
         initializeAccentTileLayer(level, layer4, tileset, tileProperties);
-        initializeCharacterLayer(level, characters, directory);
 
         return level;
     }
 
+    /**
+     * Puts a level loaded by initializeLevel back in its starting state.
+     *
+     * The tile layers are kept, except for the swamps that were vacuumed, which are
+     * restored.  The player, the enemies and the props are created again from the
+     * character layer, and the tiles under the breakables are marked as changed.
+     * @param level The level to reset
+     * @param leveljson The Json the level was loaded from
+     * @param directory The directory so that the characters can get their animations
+     */
+    public void resetLevel(LevelModel level, JsonValue leveljson, AssetDirectory directory){
+        height = level.getHeight();
+        width = level.getWidth();
+        level.restoreSwamps();
+        level.clearCharacters();
+
+        JsonValue characters = leveljson.get("layers").child();
+        for (int i = 0; i < 4; i++) {
+            characters = characters.next();
+        }
+        initializeCharacterLayer(level, characters, directory);
+        for (BreakableTile tile : level.getBreakables()) {
+            level.markDirtyArea(tile.getPosition().x, tile.getPosition().y, 128, 128);
+        }
+    }
+
     /**
      * This function initializes the initial layer of tiles which is just the tiles that you can regularly
      * walk on and also the tiles that are a part of the background
@@ -3,8 +3,6 @@ package com.redpacts.frostpurge.game.controllers;
 import com.badlogic.gdx.audio.Sound;
 
 import com.badlogic.gdx.Gdx;
-import com.badlogic.gdx.graphics.g2d.PolygonRegion;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Interpolation;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.graphics.Color;
@@ -18,6 +16,9 @@ public class PlayerController extends CharactersController {
     private static final float MAX_SPEED = 100;
     private static final float BOOST_MAX_SPEED = 120;
     static final float OFFSET_MULTIPLIER = 2f;
+    /** Number of triangles in the shadow of the player */
+    private static final int SHADOW_SEGMENTS = 19;
+    private static final Color SHADOW_COLOR = new Color(0f, 0f, 0f, 0.5f);
 
     /** The sound for accelerating */
     private Sound accelerateSound;
@@ -237,36 +238,8 @@ public class PlayerController extends CharactersController {
 
     private void drawShadow(GameCanvas canvas){
         // Draw shadow
-        short[] indices = new short[3];
-        indices[0] = 0;
-        indices[1] = 1;
-        indices[2] = 2;
-
-        Vector2 rayStart = model.getBody().getPosition().cpy();
-        int numRays = 20; // Number of segments for circle
-        float deltaAngle = 360f / (numRays - 1); // Angle between each segment
-
-        float angle = 0;
-        Vector2 dir = new Vector2(1, 0);
-        Vector2 rayDirection = dir.cpy().rotateDeg(angle);
-        Vector2 rayEnd = rayStart.cpy().add(rayDirection.scl(((PlayerModel)model).getRadius())); // Calculate end point of the ray
-        Vector2 rayPrevious = rayEnd.cpy();
-        Vector2 ray1, ray2, ray3;
-
-        for (int i = 1; i < numRays; i++) {
-            angle += deltaAngle;
-            rayDirection = dir.cpy().rotateDeg(angle);
-            rayEnd = rayStart.cpy().add(rayDirection.scl(((PlayerModel)model).getRadius()));
-
-            ray1 = rayStart.cpy().scl(10).add(-100, -100);
-            ray2 = rayPrevious.cpy().scl(10).add(-100, -100);
-            ray3 = rayEnd.cpy().scl(10).add(-100, -100);
-
-            float[] vertices = {ray1.x, ray1.y, ray2.x, ray2.y, ray3.x, ray3.y};
-            PolygonRegion cone = new PolygonRegion(new TextureRegion(), vertices, indices);
-            canvas.draw(cone, new Color(0f, 0f, 0f, 0.5f), 100, 100 ,0);
-
-            rayPrevious = rayEnd.cpy();
-        }
+        // The interpolated position, so that the shadow stays under the sprite
+        Vector2 position = model.getPosition();
+        canvas.drawCircle(SHADOW_COLOR, position.x, position.y, ((PlayerModel)model).getRadius() * 10, SHADOW_SEGMENTS);
     }
 }
@@ -55,12 +55,12 @@ public class BouncyTile extends TileModel{
     /**
      * Create a tile with the specified texture
      *
-     * @param textureActive    The active texture of the tile
+     * @param textureActive    The animation of the tile (owned by the tile)
      */
-    public BouncyTile(TextureRegion textureActive, Vector2 position, float scale, int base, int rows, int cols, int size){
+    public BouncyTile(FilmStrip textureActive, Vector2 position, float scale, int base){
         this.type = TileType.BOUNCY;
-        this.texture = new FilmStrip(textureActive.getTexture(), rows, cols, size).getTexture();
-        this.activeTexture = new FilmStrip(textureActive.getTexture(), rows, cols, size);
+        this.texture = textureActive.getTexture();
+        this.activeTexture = textureActive;
         this.active = false;
         this.time = 0;
         this.position = position;
@@ -56,12 +56,12 @@ public class BreakableTile extends TileModel{
     /**
      * Create a tile with the specified texture
      *
-     * @param textureActive    The active texture of the tile
+     * @param textureActive    The animation of the tile (owned by the tile)
      */
-    public BreakableTile(TextureRegion textureActive, Vector2 position, float scale, int base, int rows, int cols, int size){
+    public BreakableTile(FilmStrip textureActive, Vector2 position, float scale, int base){
         this.type = TileType.DESTRUCTIBLE;
-        this.texture = new FilmStrip(textureActive.getTexture(), rows, cols, size).getTexture();
-        this.activeTexture = new FilmStrip(textureActive.getTexture(), rows, cols, size);
+        this.texture = textureActive.getTexture();
+        this.activeTexture = textureActive;
         this.active = true;
         this.destroyed = false;
         this.time = 0;
@@ -52,25 +52,19 @@ public class EnemyModel extends CharactersModel{
 
         //texture = new TextureRegion(directory.getEntry( "EnemyLR", Texture.class )).getTexture();
 
-        Texture duck = new TextureRegion(directory.getEntry("EnemyLR", Texture.class)).getTexture();
-        idleright = new FilmStrip(duck, 1, 8, 8);
+        idleright = directory.getFilmStrip("EnemyLR");
         idleleft = idleright;
         idleup = idleright;
 
-        run_right = new FilmStrip(duck, 1, 8, 8);
+        run_right = directory.getFilmStrip("EnemyLR");
 //        run_right.setFrame(4);
 
-        TextureRegion left = new TextureRegion(directory.getEntry( "EnemyLR", Texture.class ));
-        left.flip(false,true);
-
-        run_left = new FilmStrip(left.getTexture(),1,8,8);
+        run_left = directory.getFilmStrip("EnemyLR");
 //        run_left.setFrame(4);
 
-        Texture up= new TextureRegion(directory.getEntry( "EnemyUp", Texture.class )).getTexture();
-        run_up = new FilmStrip(up, 1, 7, 7);
+        run_up = directory.getFilmStrip("EnemyUp");
 
-        Texture down = new TextureRegion(directory.getEntry( "EnemyDown", Texture.class )).getTexture();
-        run_down = new FilmStrip(down, 1, 8, 8);
+        run_down = directory.getFilmStrip("EnemyDown");
 
         quackSound = directory.getEntry("Quack", Sound.class);
         quackId = -1;
@@ -102,57 +96,41 @@ public class EnemyModel extends CharactersModel{
         }
 
         if(Objects.equals(this.enemyType, "duck")){
-            Texture duck = new TextureRegion(directory.getEntry("EnemyLR", Texture.class)).getTexture();
-            idleright = new FilmStrip(duck, 1, 8, 8);
+            idleright = directory.getFilmStrip("EnemyLR");
             idleleft = idleright;
             idleup = idleright;
 
-            run_right = new FilmStrip(duck, 1, 8, 8);
+            run_right = directory.getFilmStrip("EnemyLR");
 //        run_right.setFrame(4);
 
-            TextureRegion left = new TextureRegion(directory.getEntry( "EnemyLR", Texture.class ));
-            left.flip(false,true);
-
-            run_left = new FilmStrip(left.getTexture(),1,8,8);
+            run_left = directory.getFilmStrip("EnemyLR");
 //        run_left.setFrame(4);
 
-            Texture up= new TextureRegion(directory.getEntry( "EnemyUp", Texture.class )).getTexture();
-            run_up = new FilmStrip(up, 1, 7, 7);
+            run_up = directory.getFilmStrip("EnemyUp");
 
-            Texture down = new TextureRegion(directory.getEntry( "EnemyDown", Texture.class )).getTexture();
-            run_down = new FilmStrip(down, 1, 8, 8);
+            run_down = directory.getFilmStrip("EnemyDown");
 
             quackSound = directory.getEntry("Quack", Sound.class);
             quackId = -1;
         }else if(Objects.equals(this.enemyType, "bat")){
-            Texture bat = new TextureRegion(directory.getEntry("EnemyBat", Texture.class)).getTexture();
-            idleright = new FilmStrip(bat, 1, 5, 5);
+            idleright = directory.getFilmStrip("EnemyBat");
             idleleft = idleright;
             idleup = idleright;
-            run_right = new FilmStrip(bat, 1, 5, 5);
-
-            TextureRegion left = new TextureRegion(directory.getEntry( "EnemyBat", Texture.class ));
-            left.flip(false,true);
-
-            run_left = new FilmStrip(left.getTexture(),1,5,5);
-            run_up = new FilmStrip(bat, 1, 5, 5);
-            run_down = new FilmStrip(bat, 1, 5, 5);
+            run_right = directory.getFilmStrip("EnemyBat");
+            run_left = directory.getFilmStrip("EnemyBat");
+            run_up = directory.getFilmStrip("EnemyBat");
+            run_down = directory.getFilmStrip("EnemyBat");
 
             quackSound = directory.getEntry("Bat", Sound.class);
             quackId = -1;
         }else if(Objects.equals(this.enemyType, "flies")){
-            Texture flies = new TextureRegion(directory.getEntry("EnemyFly", Texture.class)).getTexture();
-            idleright = new FilmStrip(flies, 1, 6, 6);
+            idleright = directory.getFilmStrip("EnemyFly");
             idleleft = idleright;
             idleup = idleright;
-            run_right = new FilmStrip(flies, 1, 6, 6);
-
-            TextureRegion left = new TextureRegion(directory.getEntry( "EnemyFly", Texture.class ));
-            left.flip(false,true);
-
-            run_left = new FilmStrip(left.getTexture(),1,6,6);
-            run_up = new FilmStrip(flies, 1, 6, 6);
-            run_down = new FilmStrip(flies, 1, 6, 6);
+            run_right = directory.getFilmStrip("EnemyFly");
+            run_left = directory.getFilmStrip("EnemyFly");
+            run_up = directory.getFilmStrip("EnemyFly");
+            run_down = directory.getFilmStrip("EnemyFly");
 
             quackSound = directory.getEntry("Flies", Sound.class);
             quackId = -1;
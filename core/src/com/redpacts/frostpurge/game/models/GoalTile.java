@@ -50,12 +50,12 @@ public class GoalTile extends TileModel{
     /**
      * Create a tile with the specified texture
      *
-     * @param textureActive    The active texture of the tile
+     * @param textureActive    The animation of the tile (owned by the tile)
      */
-    public GoalTile(TextureRegion textureActive, Vector2 position, String label, float scale, int base, int rows, int cols, int size){
+    public GoalTile(FilmStrip textureActive, Vector2 position, String label, float scale, int base){
         this.type = TileType.SWAMP;
-        this.texture = new FilmStrip(textureActive.getTexture(), rows, cols, size).getTexture();
-        this.activeTexture = new FilmStrip(textureActive.getTexture(), rows, cols, size);
+        this.texture = textureActive.getTexture();
+        this.activeTexture = textureActive;
         this.active = false;
         this.done = false;
         this.time = 0;
@@ -114,7 +114,7 @@ public class GoalTile extends TileModel{
         FixtureDef sensorFixtureDef = new FixtureDef();
         sensorFixtureDef.shape = shape;
         sensorFixtureDef.isSensor = true;
-        sensorFixtureDef.filter.categoryBits = CollisionController.PhysicsConstants.CATEGORY_SWAMP;
+        sensorFixtureDef.filter.categoryBits = CollisionController.PhysicsConstants.CATEGORY_GOAL;
         sensorFixtureDef.filter.maskBits = CollisionController.PhysicsConstants.CATEGORY_PLAYER;
 
         body.createFixture(sensorFixtureDef);
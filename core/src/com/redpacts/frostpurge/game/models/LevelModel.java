@@ -1,6 +1,7 @@
 package com.redpacts.frostpurge.game.models;
 
 import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
@@ -9,9 +10,12 @@ import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.Null;
 import com.redpacts.frostpurge.game.assets.AssetDirectory;
 import com.redpacts.frostpurge.game.controllers.EnemyController;
+import com.redpacts.frostpurge.game.util.DirtyRegions;
 import com.redpacts.frostpurge.game.util.EnemyStates;
 import com.redpacts.frostpurge.game.util.FilmStrip;
+import com.redpacts.frostpurge.game.util.OccupancyGrid;
 import com.redpacts.frostpurge.game.util.TileGraph;
+import com.redpacts.frostpurge.game.util.TileSpatialIndex;
 import com.redpacts.frostpurge.game.views.GameCanvas;
 
 import java.util.ArrayList;
@@ -35,6 +39,18 @@ public class LevelModel {
     private AssetDirectory directory;
     /** The dimensions of a single tile */
     private static final int TILE_WIDTH = 64;
+    /** Cache for the visible tile range (minCol, minRow, maxCol, maxRow) so culling does not allocate */
+    private final int[] visibleRange = new int[4];
+    /** Spatial index over the occupied accent and extra layer tiles */
+    private TileSpatialIndex spatialIndex;
+    /** Tile regions changed since the start of the frame */
+    private DirtyRegions dirtyRegions;
+    /** Tiles blocking the sight of the enemies */
+    private OccupancyGrid occupancy;
+    /** Swamps vacuumed since the level started, so they can be restored */
+    private Array<TileModel> removedSwamps;
+    /** Tiles removed from the level whose bodies have not been destroyed yet */
+    private Array<TileModel> removedTiles;
     public LevelModel(int height, int width, AssetDirectory directory){
         this.height = height;
         this.width = width;
@@ -47,6 +63,11 @@ public class LevelModel {
         breakables = new Array<>();
         altered = false;
         this.directory = directory;
+        spatialIndex = new TileSpatialIndex(width, height, TILE_WIDTH);
+        dirtyRegions = new DirtyRegions(width, height);
+        occupancy = new OccupancyGrid(width, height);
+        removedSwamps = new Array<>();
+        removedTiles = new Array<>();
     }
 
     /**
@@ -154,14 +175,12 @@ public class LevelModel {
      */
     public void createBreakable(int x, int y, int rotation, AssetDirectory directory, int index, String label, int base){
         // TODO: Right now only supports one type of breakable.
-        TextureRegion glassBox =  new TextureRegion(directory.getEntry("BreakableGlassBox", Texture.class));
-        TextureRegion woodBox =  new TextureRegion(directory.getEntry("BreakableWoodBox", Texture.class));
         switch (label) {
             case "glass":
-                breakables.insert(breakables.size, new BreakableTile(glassBox, new Vector2(x,y), 1,  base, 1, 4, 4));
+                breakables.insert(breakables.size, new BreakableTile(directory.getFilmStrip("BreakableGlassBox"), new Vector2(x,y), 1,  base));
                 break;
             case "wood":
-                breakables.insert(breakables.size, new BreakableTile(woodBox, new Vector2(x,y), 1,  base, 1, 4, 4));
+                breakables.insert(breakables.size, new BreakableTile(directory.getFilmStrip("BreakableWoodBox"), new Vector2(x,y), 1,  base));
                 break;
         }
 //        extraLayer[y / 64][x / 64] = new BreakableTile(texture, new Vector2(x,y), 1,  base, 1, 4, 4);
@@ -177,14 +196,12 @@ public class LevelModel {
      * @return enemy to be put into an enemy controller
      */
     public void createGoal(int x, int y, int rotation, AssetDirectory directory, String label, int base){
-        TextureRegion smallGoal =  new TextureRegion(directory.getEntry("SmallGoal", Texture.class));
-        TextureRegion bigGoal =  new TextureRegion(directory.getEntry("BigGoal", Texture.class));
         switch (label) {
             case "small":
-                goal = new GoalTile(smallGoal, new Vector2(x,y), "small", 1, base, 1, 10, 10);
+                goal = new GoalTile(directory.getFilmStrip("SmallGoal"), new Vector2(x,y), "small", 1, base);
                 break;
             case "big":
-                goal = new GoalTile(bigGoal, new Vector2(x,y), "big", 1, base, 1, 10, 10);
+                goal = new GoalTile(directory.getFilmStrip("BigGoal"), new Vector2(x,y), "big", 1, base);
                 break;
         }
 //        extraLayer[y / 64][x / 64] = new BreakableTile(texture, new Vector2(x,y), 1,  base, 1, 4, 4);
@@ -201,13 +218,11 @@ public class LevelModel {
      */
     public void createBouncy(int x, int y, int rotation, AssetDirectory directory, int index, String label, int base){
         // TODO: Right now only supports one type of bouncy.
-        TextureRegion activeBouncyMushroom
-                =  new TextureRegion(directory.getEntry("ActiveBouncyMushroom", Texture.class));
         System.out.println("BOUNCE");
         switch (label) {
             case "mushroom":
                 System.out.println("MUSHROOM");
-                bouncy.insert(bouncy.size, new BouncyTile(activeBouncyMushroom, new Vector2(x,y), 1, base, 1, 8, 8));
+                bouncy.insert(bouncy.size, new BouncyTile(directory.getFilmStrip("ActiveBouncyMushroom"), new Vector2(x,y), 1, base));
                 break;
         }
 //        extraLayer[y / 64][x / 64] = new BouncyTile(idle, active, new Vector2(x,y), 1, base, 1, 8, 8);
@@ -280,6 +295,225 @@ public class LevelModel {
         return x >= 0 && y >= 0 && x < width && y < height;
     }
 
+    /**
+     * Returns the tile the enemies walk on at the given cell
+     *
+     * Swamps and destructibles are walked over on their base tile, as in the tile
+     * graph of the enemies.  Returns null if the cell is an obstacle or out of bounds.
+     *
+     * @param x The column of the cell
+     * @param y The row of the cell
+     * @return the tile the enemies walk on at the given cell
+     */
+    public TileModel getWalkTile(int x, int y) {
+        if (!inBounds(x, y)) {
+            return null;
+        }
+        TileModel extra = extraLayer[y][x];
+        if (extra == null || extra.getType() == TileModel.TileType.SWAMP
+                || extra.getType() == TileModel.TileType.DESTRUCTIBLE) {
+            return baseLayer[y][x];
+        }
+        if (extra.getType() == TileModel.TileType.OBSTACLE) {
+            return null;
+        }
+        return extra;
+    }
+
+    /**
+     * Returns a grid of the cells the enemies cannot walk on
+     *
+     * This is the walkability of getWalkTile() as a bitset, for the searches that do
+     * not need the tiles themselves.
+     *
+     * @return a grid of the cells the enemies cannot walk on
+     */
+    public OccupancyGrid buildWalkGrid() {
+        OccupancyGrid grid = new OccupancyGrid(width, height);
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                grid.set(col, row, getWalkTile(col, row) == null);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Returns the range of tiles that intersect the camera viewport.
+     *
+     * The range is computed from the camera position, viewport and zoom (as set in
+     * GameCanvas.center()) and is padded by one tile so that nothing pops at the edges.
+     * The returned array is reused between calls and holds {minCol, minRow, maxCol, maxRow},
+     * all inclusive and clamped to the level bounds.  If the camera does not see the level
+     * at all, max will be smaller than min.
+     *
+     * @param camera The camera used to draw the level
+     * @return the visible tile range {minCol, minRow, maxCol, maxRow}
+     */
+    public int[] getVisibleTileRange(OrthographicCamera camera) {
+        float halfWidth = camera.viewportWidth * camera.zoom / 2;
+        float halfHeight = camera.viewportHeight * camera.zoom / 2;
+        visibleRange[0] = Math.max(0, (int) Math.floor((camera.position.x - halfWidth) / TILE_WIDTH) - 1);
+        visibleRange[1] = Math.max(0, (int) Math.floor((camera.position.y - halfHeight) / TILE_WIDTH) - 1);
+        visibleRange[2] = Math.min(width - 1, (int) Math.floor((camera.position.x + halfWidth) / TILE_WIDTH) + 1);
+        visibleRange[3] = Math.min(height - 1, (int) Math.floor((camera.position.y + halfHeight) / TILE_WIDTH) + 1);
+        return visibleRange;
+    }
+
+    /**
+     * Rebuilds the spatial index from the accent and extra layers.
+     *
+     * This must be called once the layers are populated.  Tiles removed with
+     * removeExtra() or removeSwamp() are taken out of the index automatically.
+     */
+    public void buildSpatialIndex() {
+        spatialIndex.clear();
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                spatialIndex.add(accentLayer[i][j]);
+                spatialIndex.add(extraLayer[i][j]);
+            }
+        }
+    }
+
+    /**
+     * Collects the accent and extra tiles overlapping a rectangle (in pixels).
+     *
+     * @param minX The left edge of the rectangle
+     * @param minY The bottom edge of the rectangle
+     * @param maxX The right edge of the rectangle
+     * @param maxY The top edge of the rectangle
+     * @param out  The array to store the result in (cleared first)
+     * @return the array out
+     */
+    public Array<TileModel> queryRect(float minX, float minY, float maxX, float maxY, Array<TileModel> out) {
+        return spatialIndex.queryRect(minX, minY, maxX, maxY, out);
+    }
+
+    /**
+     * Collects the accent and extra tiles whose center is within radius of a point (in pixels).
+     *
+     * @param x      The x-coordinate of the point
+     * @param y      The y-coordinate of the point
+     * @param radius The search radius
+     * @param out    The array to store the result in (cleared first)
+     * @return the array out
+     */
+    public Array<TileModel> queryRadius(float x, float y, float radius, Array<TileModel> out) {
+        return spatialIndex.queryRadius(x, y, radius, out);
+    }
+
+    /**
+     * Rebuilds the occupancy grid from the obstacles, bouncies and active breakables.
+     *
+     * This must be called once the level is populated.  Changes recorded with
+     * markDirty() update the grid automatically.
+     */
+    public void buildOccupancy() {
+        refreshOccupancy(0, 0, width, height);
+    }
+
+    /**
+     * Returns the tiles blocking the sight of the enemies
+     *
+     * @return the tiles blocking the sight of the enemies
+     */
+    public OccupancyGrid getOccupancy() {
+        return occupancy;
+    }
+
+    /**
+     * Recomputes the occupancy of a rectangle of tiles
+     */
+    private void refreshOccupancy(int col, int row, int cols, int rows) {
+        int c0 = Math.max(0, col);
+        int r0 = Math.max(0, row);
+        int c1 = Math.min(width, col + cols);
+        int r1 = Math.min(height, row + rows);
+        if (c1 <= c0 || r1 <= r0) {
+            return;
+        }
+        for (int i = r0; i < r1; i++) {
+            for (int j = c0; j < c1; j++) {
+                occupancy.set(j, i, extraLayer[i][j] instanceof ObstacleTile);
+            }
+        }
+        for (BouncyTile tile : bouncy) {
+            fillOccupancy(tile.getPosition(), 3, 2, c0, r0, c1, r1);
+        }
+        for (BreakableTile tile : breakables) {
+            if (tile.isActive()) {
+                fillOccupancy(tile.getPosition(), 2, 2, c0, r0, c1, r1);
+            }
+        }
+    }
+
+    /**
+     * Blocks the tiles under an object, within the rectangle [c0,c1) x [r0,r1)
+     */
+    private void fillOccupancy(Vector2 position, int cols, int rows, int c0, int r0, int c1, int r1) {
+        int col = (int) Math.floor(position.x / TILE_WIDTH);
+        int row = (int) Math.floor(position.y / TILE_WIDTH);
+        int right = (int) Math.ceil((position.x + cols * TILE_WIDTH) / TILE_WIDTH);
+        int top = (int) Math.ceil((position.y + rows * TILE_WIDTH) / TILE_WIDTH);
+        int x0 = Math.max(col, c0);
+        int y0 = Math.max(row, r0);
+        occupancy.fill(x0, y0, Math.min(right, c1) - x0, Math.min(top, r1) - y0, true);
+    }
+
+    /**
+     * Records that a rectangle of tiles changed this frame.
+     *
+     * Tiles removed with removeExtra() or removeSwamp() are marked automatically.
+     * Anything else that changes how a tile looks or collides (e.g. a breakable
+     * being destroyed) should call this, so that the occupancy grid is updated too.
+     * Swamps never block sight, so removeSwamp() only marks the dirty regions.
+     *
+     * @param col  The column of the bottom left tile
+     * @param row  The row of the bottom left tile
+     * @param cols The number of columns changed
+     * @param rows The number of rows changed
+     */
+    public void markDirty(int col, int row, int cols, int rows) {
+        dirtyRegions.mark(col, row, cols, rows);
+        refreshOccupancy(col, row, cols, rows);
+    }
+
+    /**
+     * Records that the tiles under an object changed this frame.
+     *
+     * @param x      The x-coordinate of the bottom left corner (in pixels)
+     * @param y      The y-coordinate of the bottom left corner (in pixels)
+     * @param width  The width of the object (in pixels)
+     * @param height The height of the object (in pixels)
+     */
+    public void markDirtyArea(float x, float y, float width, float height) {
+        int col = (int) Math.floor(x / TILE_WIDTH);
+        int row = (int) Math.floor(y / TILE_WIDTH);
+        int cols = (int) Math.ceil((x + width) / TILE_WIDTH) - col;
+        int rows = (int) Math.ceil((y + height) / TILE_WIDTH) - row;
+        markDirty(col, row, cols, rows);
+    }
+
+    /**
+     * Returns the tile regions changed since the last call to clearDirtyRegions()
+     *
+     * @return the tile regions changed this frame
+     */
+    public DirtyRegions getDirtyRegions() {
+        return dirtyRegions;
+    }
+
+    /**
+     * Forgets every change, starting a new frame.
+     *
+     * This must be called once per frame by the game mode, before the simulation
+     * runs, so that every system sees the changes of a frame exactly once.
+     */
+    public void clearDirtyRegions() {
+        dirtyRegions.clear();
+    }
+
     public Array<TileModel> getTileNeighbors(int x, int y){
         Array<TileModel> neighbors = new Array<TileModel>();
         for(int i = x-1; i <= x+1; i++){
@@ -336,17 +570,77 @@ public class LevelModel {
     public void removeExtra(float x, float y){
         int indexx = (int) Math.floor(x/64);
         int indexy = (int) Math.floor(y/64);
+        if (extraLayer[indexy][indexx] != null) {
+            spatialIndex.remove(extraLayer[indexy][indexx]);
+            removedTiles.add(extraLayer[indexy][indexx]);
+        }
         extraLayer[indexy][indexx] = null;
+        markDirty(indexx, indexy, 1, 1);
     }
+    /**
+     * Removes the swamp at a position, along with every swamp connected to it.
+     *
+     * Swamps do not block sight, so only the dirty regions are marked; the
+     * occupancy grid is left alone.
+     *
+     * @param x The x-coordinate of the position (in pixels)
+     * @param y The y-coordinate of the position (in pixels)
+     */
     public void removeSwamp(float x, float y){
         int indexx = (int) Math.floor(x/64);
         int indexy = (int) Math.floor(y/64);
         if(extraLayer[indexy][indexx] != null && extraLayer[indexy][indexx].getType() == TileModel.TileType.SWAMP){
+            spatialIndex.remove(extraLayer[indexy][indexx]);
+            removedSwamps.add(extraLayer[indexy][indexx]);
+            removedTiles.add(extraLayer[indexy][indexx]);
             extraLayer[indexy][indexx] = null;
+            dirtyRegions.mark(indexx, indexy, 1, 1);
             Array<TileModel> neighbors = this.getTileNeighbors(indexx, indexy);
             for(TileModel neighbor: neighbors){
                 removeSwamp(neighbor.getPosition().x, neighbor.getPosition().y);
             }
         }
     }
+
+    /**
+     * Puts back every swamp removed since the level started.
+     *
+     * Only the layer, the spatial index and the dirty regions are updated here
+     * (swamps do not block sight); the swamps lost their bodies when they were
+     * vacuumed, and the collision controller gives them new ones when it is reset.
+     */
+    public void restoreSwamps() {
+        for (TileModel tile : removedSwamps) {
+            int col = (int) Math.floor(tile.getPosition().x / TILE_WIDTH);
+            int row = (int) Math.floor(tile.getPosition().y / TILE_WIDTH);
+            extraLayer[row][col] = tile;
+            spatialIndex.add(tile);
+            dirtyRegions.mark(col, row, 1, 1);
+        }
+        removedSwamps.clear();
+    }
+
+    /**
+     * Moves the tiles removed since the last call into the given array.
+     *
+     * The tiles are out of the layers already; their bodies are still in the world
+     * and are for the caller to destroy, outside of a world step.
+     *
+     * @param out The array to add the removed tiles to
+     */
+    public void drainRemovedTiles(Array<TileModel> out) {
+        out.addAll(removedTiles);
+        removedTiles.clear();
+    }
+
+    /**
+     * Forgets the player, the enemies and the props, so they can be created again
+     */
+    public void clearCharacters() {
+        player = null;
+        goal = null;
+        enemies.clear();
+        bouncy.clear();
+        breakables.clear();
+    }
 }
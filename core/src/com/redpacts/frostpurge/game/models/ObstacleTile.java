@@ -20,6 +20,8 @@ public class ObstacleTile extends TileModel{
     private TileType type;
     /** Scale from texture to screen */
     private float scale;
+    /** Debug outline shared by all merged obstacles */
+    private static PolygonShape outline;
 
     /**
      * Returns the texture of this tile
@@ -73,6 +75,23 @@ public class ObstacleTile extends TileModel{
         this.base  = base;
     }
 
+    /**
+     * Attaches this tile to a body shared with its neighbors.
+     *
+     * This is used when obstacles are merged into larger collision rectangles.
+     * The tile keeps a box of its own size for the debug outline.
+     *
+     * @param body The body covering this tile
+     */
+    public void attachBody(Body body) {
+        this.body = body;
+        if (outline == null) {
+            outline = new PolygonShape();
+            outline.setAsBox(6.4f / 2, 6.4f / 2);
+        }
+        this.shape = outline;
+    }
+
     @Override
     public void createBody(World world) {
         BodyDef bodyDef = new BodyDef();
@@ -104,65 +104,45 @@ public class PlayerModel extends CharactersModel {
         this.alive = true;
         this.radius = 3.19f;
 
-        Texture idle_right = new TextureRegion(directory.getEntry("Liv_Idle_Right", Texture.class)).getTexture();
-        idleRightNormal = new FilmStrip(idle_right, 1, 3, 3);
+        idleRightNormal = directory.getFilmStrip("Liv_Idle_Right");
         idleright = idleRightNormal;
-        idle_right = new TextureRegion(directory.getEntry("Liv_Idle_Right_Damaged", Texture.class)).getTexture();
-        idleRightDamaged = new FilmStrip(idle_right, 1, 3, 3);
+        idleRightDamaged = directory.getFilmStrip("Liv_Idle_Right_Damaged");
 
-        Texture idle_left = new TextureRegion(directory.getEntry("Liv_Idle_Left", Texture.class)).getTexture();
-        idleLeftNormal = new FilmStrip(idle_left, 1, 3, 3);
+        idleLeftNormal = directory.getFilmStrip("Liv_Idle_Left");
         idleleft = idleLeftNormal;
-        idle_left = new TextureRegion(directory.getEntry("Liv_Idle_Left_Damaged", Texture.class)).getTexture();
-        idleLeftDamaged = new FilmStrip(idle_left, 1, 3, 3);
+        idleLeftDamaged = directory.getFilmStrip("Liv_Idle_Left_Damaged");
 
-        Texture idle_up = new TextureRegion(directory.getEntry("Liv_Idle_Up", Texture.class)).getTexture();
-        idleUpNormal = new FilmStrip(idle_up, 1, 3, 3);
+        idleUpNormal = directory.getFilmStrip("Liv_Idle_Up");
         idleup = idleUpNormal;
-        idle_up = new TextureRegion(directory.getEntry("Liv_Idle_Up_Damaged", Texture.class)).getTexture();
-        idleUpDamaged = new FilmStrip(idle_up, 1, 3, 3);
+        idleUpDamaged = directory.getFilmStrip("Liv_Idle_Up_Damaged");
 
-        Texture run_left_text = new TextureRegion(directory.getEntry("Liv_Run_Left", Texture.class)).getTexture();
-        runLeftNormal = new FilmStrip(run_left_text, 1, 8, 8);
+        runLeftNormal = directory.getFilmStrip("Liv_Run_Left");
         run_left = runLeftNormal;
-        run_left_text = new TextureRegion(directory.getEntry("Liv_Run_Left_Damaged", Texture.class)).getTexture();
-        runLeftDamaged = new FilmStrip(run_left_text, 1, 8, 8);
+        runLeftDamaged = directory.getFilmStrip("Liv_Run_Left_Damaged");
 
-        Texture run_right_text = new TextureRegion(directory.getEntry("Liv_Run_Right", Texture.class)).getTexture();
-        runRightNormal = new FilmStrip(run_right_text, 1, 8, 8);
+        runRightNormal = directory.getFilmStrip("Liv_Run_Right");
         run_right = runRightNormal;
-        run_right_text = new TextureRegion(directory.getEntry("Liv_Run_Right_Damaged", Texture.class)).getTexture();
-        runRightDamaged = new FilmStrip(run_right_text, 1, 8, 8);
+        runRightDamaged = directory.getFilmStrip("Liv_Run_Right_Damaged");
 
         // TODO: CHANGE TO RIGHT TEXTURE
-        Texture run_down_text = new TextureRegion(directory.getEntry("Liv_Run_Left", Texture.class)).getTexture();
-        runDownNormal = new FilmStrip(run_down_text, 1, 8, 8);
+        runDownNormal = directory.getFilmStrip("Liv_Run_Left");
         run_down = runDownNormal;
-        run_down_text = new TextureRegion(directory.getEntry("Liv_Run_Left_Damaged", Texture.class)).getTexture();
-        runDownDamaged = new FilmStrip(run_down_text, 1, 8, 8);
+        runDownDamaged = directory.getFilmStrip("Liv_Run_Left_Damaged");
 
-        Texture run_up_text = new TextureRegion(directory.getEntry("Liv_Run_Up", Texture.class)).getTexture();
-        runUpNormal = new FilmStrip(run_up_text, 1, 8, 8);
+        runUpNormal = directory.getFilmStrip("Liv_Run_Up");
         run_up = runUpNormal;
-        run_up_text = new TextureRegion(directory.getEntry("Liv_Run_Up_Damaged", Texture.class)).getTexture();
-        runUpDamaged = new FilmStrip(run_up_text, 1, 8, 8);
-
-        death = new FilmStrip(new TextureRegion(directory.getEntry("Liv_Death", Texture.class)).getTexture(), 1, 7, 7);
-        win = new FilmStrip(new TextureRegion(directory.getEntry("Liv_Win", Texture.class)).getTexture(), 1, 8, 8);
-
-        Texture vacuum_start_left_text = new TextureRegion(directory.getEntry("Liv_Vacuum_Start_Left", Texture.class)).getTexture();
-        vacuum_start_left = new FilmStrip(vacuum_start_left_text, 1, 4, 4);
-        Texture vacuum_left_text = new TextureRegion(directory.getEntry("Liv_Vacuum_Left", Texture.class)).getTexture();
-        vacuum_left = new FilmStrip(vacuum_left_text, 1, 3, 3);
-        Texture vacuum_end_left_text = new TextureRegion(directory.getEntry("Liv_Vacuum_End_Left", Texture.class)).getTexture();
-        vacuum_end_left = new FilmStrip(vacuum_end_left_text, 1, 4, 4);
-
-        Texture vacuum_start_right_text = new TextureRegion(directory.getEntry("Liv_Vacuum_Start_Right", Texture.class)).getTexture();
-        vacuum_start_right = new FilmStrip(vacuum_start_right_text, 1, 4, 4);
-        Texture vacuum_right_text = new TextureRegion(directory.getEntry("Liv_Vacuum_Right", Texture.class)).getTexture();
-        vacuum_right = new FilmStrip(vacuum_right_text, 1, 3, 3);
-        Texture vacuum_end_right_text = new TextureRegion(directory.getEntry("Liv_Vacuum_End_Right", Texture.class)).getTexture();
-        vacuum_end_right = new FilmStrip(vacuum_end_right_text, 1, 4, 4);
+        runUpDamaged = directory.getFilmStrip("Liv_Run_Up_Damaged");
+
+        death = directory.getFilmStrip("Liv_Death");
+        win = directory.getFilmStrip("Liv_Win");
+
+        vacuum_start_left = directory.getFilmStrip("Liv_Vacuum_Start_Left");
+        vacuum_left = directory.getFilmStrip("Liv_Vacuum_Left");
+        vacuum_end_left = directory.getFilmStrip("Liv_Vacuum_End_Left");
+
+        vacuum_start_right = directory.getFilmStrip("Liv_Vacuum_Start_Right");
+        vacuum_right = directory.getFilmStrip("Liv_Vacuum_Right");
+        vacuum_end_right = directory.getFilmStrip("Liv_Vacuum_End_Right");
 
         // TODO: Import actual audio assets
         accelerateSound = directory.getEntry("Accelerate", Sound.class);
@@ -385,6 +365,15 @@ public class PlayerModel extends CharactersModel {
         boostCoolDown = BOOST_COOL_DOWN;
     }
 
+    /**
+     * Returns true while the last boost is under way (until its cool down is over)
+     *
+     * @return true while the last boost is under way
+     */
+    public boolean isBoosting(){
+        return boostCoolDown > 0;
+    }
+
     public int getVacuumingProgression(){
         return this.vacuumingProgression;
     }
@@ -445,6 +434,7 @@ public class PlayerModel extends CharactersModel {
                 CollisionController.PhysicsConstants.CATEGORY_ENEMY_BAT |
                 CollisionController.PhysicsConstants.CATEGORY_OBSTACLE |
                 CollisionController.PhysicsConstants.CATEGORY_SWAMP |
+                CollisionController.PhysicsConstants.CATEGORY_GOAL |
                 CollisionController.PhysicsConstants.CATEGORY_DESTRUCTIBLE |
                 CollisionController.PhysicsConstants.CATEGORY_BOUNCY);
 
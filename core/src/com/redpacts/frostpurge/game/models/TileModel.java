@@ -64,4 +64,19 @@ public abstract class TileModel extends GameObject {
         this.index = index;
     }
 
+    /**
+     * Destroys the body of the tile, if it has one
+     *
+     * The tile can be given a new body later with createBody().
+     *
+     * @param world The world the body belongs to
+     */
+    @Override
+    public void deactivatePhysics(World world) {
+        if (body != null) {
+            world.destroyBody(body);
+            body = null;
+        }
+    }
+
 }
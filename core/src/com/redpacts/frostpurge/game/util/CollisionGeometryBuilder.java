@@ -0,0 +1,116 @@
+package com.redpacts.frostpurge.game.util;
+
+import com.badlogic.gdx.physics.box2d.*;
+import com.redpacts.frostpurge.game.controllers.CollisionController;
+import com.redpacts.frostpurge.game.models.ObstacleTile;
+import com.redpacts.frostpurge.game.models.TileModel;
+
+/**
+ * Builds the static collision geometry of the obstacle tiles of a level.
+ *
+ * Obstacles used to get one static body with a single box fixture each, so a large
+ * level put tens of thousands of bodies in the broadphase.  Obstacles are almost
+ * always placed in walls and blocks, so this builder greedily merges adjacent
+ * obstacle cells into maximal rectangles and creates one body per rectangle.
+ *
+ * Every merged tile keeps a reference to the shared body, and the body user data is
+ * the bottom left tile of its rectangle.  Contact handling and the vision raycasts
+ * only look at the type of the user data, so they behave as before.
+ */
+public class CollisionGeometryBuilder {
+    /** Size of a tile in pixels */
+    private static final float TILE_WIDTH = 64f;
+    /** Scale from pixels to Box2D units */
+    private static final float PHYSICS_SCALE = 0.1f;
+
+    /**
+     * Creates the merged obstacle bodies of a tile layer.
+     *
+     * Cells are scanned row by row.  Each unvisited obstacle starts a rectangle,
+     * which is first grown along its row, then upwards for as long as the whole
+     * span of the next row is made of unvisited obstacles.
+     *
+     * @param world  The world to create the bodies in
+     * @param layer  The tile layer, indexed by [row][column]
+     * @param width  The width of the layer in tiles
+     * @param height The height of the layer in tiles
+     * @return the number of bodies created
+     */
+    public static int buildObstacles(World world, TileModel[][] layer, int width, int height) {
+        boolean[][] visited = new boolean[height][width];
+        int bodies = 0;
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                if (visited[i][j] || !(layer[i][j] instanceof ObstacleTile)) {
+                    continue;
+                }
+                // Grow along the row
+                int w = 1;
+                while (j + w < width && !visited[i][j + w] && layer[i][j + w] instanceof ObstacleTile) {
+                    w++;
+                }
+                // Grow upwards while the full span is free
+                int h = 1;
+                boolean grow = true;
+                while (grow && i + h < height) {
+                    for (int k = j; k < j + w; k++) {
+                        if (visited[i + h][k] || !(layer[i + h][k] instanceof ObstacleTile)) {
+                            grow = false;
+                            break;
+                        }
+                    }
+                    if (grow) {
+                        h++;
+                    }
+                }
+
+                Body body = createBody(world, (ObstacleTile) layer[i][j], j, i, w, h);
+                for (int y = i; y < i + h; y++) {
+                    for (int x = j; x < j + w; x++) {
+                        visited[y][x] = true;
+                        ((ObstacleTile) layer[y][x]).attachBody(body);
+                    }
+                }
+                bodies++;
+            }
+        }
+        return bodies;
+    }
+
+    /**
+     * Creates a static box body covering a rectangle of tiles.
+     *
+     * The fixture has the same filter and restitution as a single obstacle.
+     *
+     * @param world The world to create the body in
+     * @param owner The tile used as the body user data
+     * @param col   The column of the bottom left tile
+     * @param row   The row of the bottom left tile
+     * @param cols  The number of columns covered
+     * @param rows  The number of rows covered
+     * @return the new body
+     */
+    private static Body createBody(World world, ObstacleTile owner, int col, int row, int cols, int rows) {
+        BodyDef bodyDef = new BodyDef();
+        bodyDef.active = true;
+        bodyDef.type = BodyDef.BodyType.StaticBody;
+        bodyDef.position.set((col + cols / 2f) * TILE_WIDTH * PHYSICS_SCALE, (row + rows / 2f) * TILE_WIDTH * PHYSICS_SCALE);
+
+        Body body = world.createBody(bodyDef);
+        body.setUserData(owner);
+
+        PolygonShape shape = new PolygonShape();
+        shape.setAsBox(cols * TILE_WIDTH * PHYSICS_SCALE / 2, rows * TILE_WIDTH * PHYSICS_SCALE / 2);
+
+        FixtureDef fixtureDef = new FixtureDef();
+        fixtureDef.shape = shape;
+        fixtureDef.restitution = 0.25f;
+        fixtureDef.filter.categoryBits = CollisionController.PhysicsConstants.CATEGORY_OBSTACLE;
+        fixtureDef.filter.maskBits = (short)(CollisionController.PhysicsConstants.CATEGORY_PLAYER |
+                CollisionController.PhysicsConstants.CATEGORY_ENEMY_DUCK);
+
+        body.createFixture(fixtureDef);
+        shape.dispose();
+        return body;
+    }
+}
@@ -0,0 +1,106 @@
+package com.redpacts.frostpurge.game.util;
+
+import com.redpacts.frostpurge.game.models.GameObject;
+
+/**
+ * Table of contact handlers indexed by the collision categories of the two fixtures.
+ *
+ * Every fixture in the game has exactly one category bit set (see
+ * CollisionController.PhysicsConstants), so the index of that bit identifies what the
+ * fixture belongs to.  A handler is registered once for an ordered pair of categories,
+ * and the table fills in the mirrored entry with the arguments swapped.  Dispatching
+ * a contact is then two bit scans and an array lookup, instead of a chain of
+ * instanceof tests on the user data of both bodies.
+ *
+ * Pairs without a handler are ignored.
+ */
+public class ContactDispatchTable {
+    /** Number of distinct categories (one per bit of the filter) */
+    public static final int CATEGORY_COUNT = 16;
+
+    /**
+     * Callback for a contact between two kinds of fixtures.
+     *
+     * The objects are given in the order of the categories the handler was
+     * registered with, whatever the order of the fixtures in the contact.
+     */
+    public interface Handler {
+        /**
+         * Handles a contact
+         *
+         * @param event  The contact
+         * @param first  The object with the first category of the pair
+         * @param second The object with the second category of the pair
+         */
+        void handle(ContactEvent event, GameObject first, GameObject second);
+    }
+
+    /** Handlers indexed by [category of fixture A][category of fixture B] */
+    private final Handler[][] handlers = new Handler[CATEGORY_COUNT][CATEGORY_COUNT];
+
+    /**
+     * Returns the table index of a category, or -1 if no bit is set
+     *
+     * @param category The category bits of a fixture
+     * @return the index of the lowest category bit
+     */
+    public static int indexOf(short category) {
+        int bits = category & 0xFFFF;
+        return bits == 0 ? -1 : Integer.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Registers the handler for contacts between two categories.
+     *
+     * The handler is called for both orders of the fixtures, with the objects
+     * swapped as needed.  A later registration of the same pair replaces it.
+     *
+     * @param first   The category of the first object
+     * @param second  The category of the second object
+     * @param handler The handler for the pair
+     */
+    public void register(short first, short second, final Handler handler) {
+        int a = indexOf(first);
+        int b = indexOf(second);
+        handlers[a][b] = handler;
+        if (a != b) {
+            handlers[b][a] = new Handler() {
+                @Override
+                public void handle(ContactEvent event, GameObject obj1, GameObject obj2) {
+                    handler.handle(event, obj2, obj1);
+                }
+            };
+        }
+    }
+
+    /**
+     * Returns the handler for the given fixture categories (null if none)
+     *
+     * @param categoryA The category of fixture A
+     * @param categoryB The category of fixture B
+     * @return the handler for the given fixture categories
+     */
+    public Handler get(short categoryA, short categoryB) {
+        int a = indexOf(categoryA);
+        int b = indexOf(categoryB);
+        if (a < 0 || b < 0) {
+            return null;
+        }
+        return handlers[a][b];
+    }
+
+    /**
+     * Calls the handler registered for a contact, if any
+     *
+     * @param event The contact to handle
+     * @return true if a handler was called
+     */
+    public boolean dispatch(ContactEvent event) {
+        Handler handler = get(event.categoryA, event.categoryB);
+        if (handler == null) {
+            return false;
+        }
+        handler.handle(event, event.objA, event.objB);
+        return true;
+    }
+}
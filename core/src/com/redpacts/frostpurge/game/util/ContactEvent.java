@@ -0,0 +1,83 @@
+package com.redpacts.frostpurge.game.util;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.Contact;
+import com.badlogic.gdx.physics.box2d.Fixture;
+import com.badlogic.gdx.physics.box2d.WorldManifold;
+import com.badlogic.gdx.utils.Pool;
+import com.redpacts.frostpurge.game.models.GameObject;
+
+/**
+ * Copy of the start of a contact, handled once the world step is over.
+ *
+ * Box2D reuses its contact objects, so everything the game logic needs is copied
+ * out of the contact when it begins.  Events live in a ContactEventQueue and are
+ * reused from step to step.
+ */
+public class ContactEvent implements Pool.Poolable {
+    /** The first fixture of the contact */
+    public Fixture fixtureA;
+    /** The second fixture of the contact */
+    public Fixture fixtureB;
+    /** The category of the first fixture */
+    public short categoryA;
+    /** The category of the second fixture */
+    public short categoryB;
+    /** The user data of the body of the first fixture */
+    public GameObject objA;
+    /** The user data of the body of the second fixture */
+    public GameObject objB;
+    /** The normal of the contact, from A to B */
+    public final Vector2 normal = new Vector2();
+    /** The first point of the contact (in world coordinates) */
+    public final Vector2 point = new Vector2();
+    /** The speed at which the bodies approached each other along the normal */
+    public float speed;
+    /** Whether the contact was left enabled when it began */
+    public boolean enabled;
+
+    /**
+     * Copies the start of a contact
+     *
+     * @param contact The contact that began
+     * @param objA    The user data of the body of fixture A
+     * @param objB    The user data of the body of fixture B
+     */
+    public void set(Contact contact, GameObject objA, GameObject objB) {
+        fixtureA = contact.getFixtureA();
+        fixtureB = contact.getFixtureB();
+        categoryA = fixtureA.getFilterData().categoryBits;
+        categoryB = fixtureB.getFilterData().categoryBits;
+        this.objA = objA;
+        this.objB = objB;
+
+        WorldManifold manifold = contact.getWorldManifold();
+        normal.set(manifold.getNormal());
+        if (manifold.getNumberOfContactPoints() > 0) {
+            point.set(manifold.getPoints()[0]);
+        } else {
+            point.set(fixtureB.getBody().getPosition());
+        }
+
+        // Closing speed along the normal, the impulse of the hit per unit of mass
+        Vector2 va = fixtureA.getBody().getLinearVelocity();
+        Vector2 vb = fixtureB.getBody().getLinearVelocity();
+        speed = Math.max(0, (va.x - vb.x) * normal.x + (va.y - vb.y) * normal.y);
+        enabled = true;
+    }
+
+    /**
+     * Forgets the contact, so the event does not keep the bodies alive
+     */
+    @Override
+    public void reset() {
+        fixtureA = null;
+        fixtureB = null;
+        objA = null;
+        objB = null;
+        normal.setZero();
+        point.setZero();
+        speed = 0;
+        enabled = true;
+    }
+}
@@ -0,0 +1,85 @@
+package com.redpacts.frostpurge.game.util;
+
+/**
+ * Ring buffer of pooled contact events.
+ *
+ * The contact listener appends an event for every contact that begins during a
+ * world step, and the collision controller drains the buffer in order once the step
+ * is over.  The events are allocated once and reused, and the buffer only grows (by
+ * doubling) when a step begins more contacts than ever before.
+ */
+public class ContactEventQueue {
+    /** The events, allocated up front */
+    private ContactEvent[] events;
+    /** Position of the oldest event */
+    private int head;
+    /** Number of events in the queue */
+    private int size;
+
+    /**
+     * Creates a new queue with room for the given number of events
+     *
+     * @param capacity The initial capacity
+     */
+    public ContactEventQueue(int capacity) {
+        events = new ContactEvent[Math.max(1, capacity)];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new ContactEvent();
+        }
+    }
+
+    /**
+     * Returns a free event at the end of the queue, to be filled in by the caller
+     *
+     * @return a free event at the end of the queue
+     */
+    public ContactEvent add() {
+        if (size == events.length) {
+            grow();
+        }
+        ContactEvent event = events[(head + size) % events.length];
+        size++;
+        return event;
+    }
+
+    /**
+     * Removes and returns the oldest event (null if the queue is empty)
+     *
+     * The event stays valid until the next call to add().
+     *
+     * @return the oldest event
+     */
+    public ContactEvent poll() {
+        if (size == 0) {
+            return null;
+        }
+        ContactEvent event = events[head];
+        head = (head + 1) % events.length;
+        size--;
+        return event;
+    }
+
+    /**
+     * Returns the number of events in the queue
+     *
+     * @return the number of events in the queue
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Doubles the capacity, keeping the events in order
+     */
+    private void grow() {
+        ContactEvent[] grown = new ContactEvent[events.length * 2];
+        for (int i = 0; i < size; i++) {
+            grown[i] = events[(head + i) % events.length];
+        }
+        for (int i = size; i < grown.length; i++) {
+            grown[i] = new ContactEvent();
+        }
+        events = grown;
+        head = 0;
+    }
+}
@@ -0,0 +1,387 @@
+package com.redpacts.frostpurge.game.util;
+
+import com.badlogic.gdx.utils.Array;
+import com.redpacts.frostpurge.game.models.GameObject;
+import com.redpacts.frostpurge.game.models.LevelModel;
+import com.redpacts.frostpurge.game.models.TileModel;
+
+/**
+ * Persistent back-to-front draw order for the objects of a level.
+ *
+ * Objects are drawn in decreasing order of their depth key, which is the y-coordinate
+ * of the object, shifted by (base-3) tiles for tiles.  The accent and extra layer tiles
+ * never move, and as they sit on the tile grid their key is always a whole number of
+ * tiles.  They are therefore put once into one bucket per key (the depth row), already
+ * in draw order.  Goal, bouncy and breakable objects are sorted once as well, so the
+ * only work left every frame is to re-sort the few moving objects (player and enemies),
+ * which are nearly sorted from the previous frame, and to merge the three sequences
+ * over the visible rows.
+ *
+ * When two objects have the same key, they are drawn in the order the old full sort
+ * produced: moving and prop objects before grid tiles, and later-added objects first.
+ */
+public class DepthDrawList {
+    /** The dimensions of a single tile */
+    private static final int TILE_WIDTH = 64;
+
+    /** Grid tiles, grouped by depth row and in draw order inside each row */
+    private TileModel[] tiles;
+    /** Row of each grid tile in its layer */
+    private int[] tileRows;
+    /** Column of each grid tile in its layer */
+    private int[] tileCols;
+    /** Layer of each grid tile (the layer array itself, to check if the tile is still there) */
+    private TileModel[][][] tileLayers;
+    /** End (exclusive) of the run of tiles sharing the row of each tile */
+    private int[] runEnds;
+    /** Start of each depth row in tiles (one extra entry at the end) */
+    private int[] bucketStarts;
+    /** End (exclusive) of the tiles still present in each depth row */
+    private int[] bucketEnds;
+    /** Depth row of the first bucket */
+    private int minBucket;
+    /** Smallest and largest (base-3) offset of the grid tiles */
+    private int minOffset, maxOffset;
+
+    /** Static objects not on the grid, sorted in draw order */
+    private final Array<GameObject> props;
+    /** Depth keys of the props */
+    private float[] propKeys;
+    /** Tie-breaking rank of the props */
+    private int[] propRanks;
+
+    /** Moving objects, re-sorted every frame */
+    private final Array<GameObject> movers;
+    /** Tie-breaking rank of the movers (index in insertion order) */
+    private int[] moverRanks;
+    /** Depth keys of the movers for the current frame */
+    private float[] moverKeys;
+
+    /**
+     * Creates a new draw list for the given level.
+     *
+     * The moving objects are the player followed by the enemies, and the props are
+     * the goal, bouncy and breakable objects, matching the order objects used to be
+     * added to the old draw list.
+     *
+     * @param level The level to draw
+     */
+    public DepthDrawList(LevelModel level) {
+        movers = new Array<>();
+        props = new Array<>();
+        buildGrid(level);
+
+        // Ranks follow the old insertion order: player, goal, enemies, bouncy, breakables
+        movers.add(level.getPlayer());
+        for (GameObject enemy : level.getEnemies()) {
+            movers.add(enemy);
+        }
+        moverRanks = new int[movers.size];
+        moverKeys = new float[movers.size];
+        for (int i = 1; i < movers.size; i++) {
+            moverRanks[i] = i + 1;
+        }
+
+        int size = level.getBouncy().size + level.getBreakables().size + 1;
+        propKeys = new float[size];
+        propRanks = new int[size];
+        addProp(level.getGoal(), 1);
+        int rank = movers.size + 1;
+        for (GameObject object : level.getBouncy()) {
+            addProp(object, rank++);
+        }
+        for (GameObject object : level.getBreakables()) {
+            addProp(object, rank++);
+        }
+    }
+
+    /**
+     * Inserts a static object in the sorted props (this only runs at load)
+     *
+     * @param object The object to add (may be null)
+     * @param rank   The tie-breaking rank of the object
+     */
+    private void addProp(GameObject object, int rank) {
+        if (object == null) {
+            return;
+        }
+        float key = depthKey(object);
+        int pos = props.size;
+        while (pos > 0 && before(key, rank, propKeys[pos - 1], propRanks[pos - 1])) {
+            pos--;
+        }
+        for (int k = props.size; k > pos; k--) {
+            propKeys[k] = propKeys[k - 1];
+            propRanks[k] = propRanks[k - 1];
+        }
+        props.insert(pos, object);
+        propKeys[pos] = key;
+        propRanks[pos] = rank;
+    }
+
+    /**
+     * Returns the depth key of an object (larger keys are drawn first)
+     *
+     * @param object The object to get the key of
+     * @return the depth key of the object
+     */
+    public static float depthKey(GameObject object) {
+        if (object instanceof TileModel) {
+            return object.getPositionY() + (((TileModel) object).base - 3) * TILE_WIDTH;
+        }
+        return object.getPositionY();
+    }
+
+    /**
+     * Returns true if an object with key k1 and rank r1 is drawn before one with k2 and r2
+     */
+    private static boolean before(float k1, int r1, float k2, int r2) {
+        return k1 > k2 || (k1 == k2 && r1 > r2);
+    }
+
+    /**
+     * Buckets the accent and extra layer tiles by depth row.
+     *
+     * Inside a bucket, tiles are ordered by decreasing row, then decreasing column,
+     * with the extra tile before the accent tile of the same cell.  This is the
+     * reverse of the row-major order they used to be added in.
+     *
+     * @param level The level to draw
+     */
+    private void buildGrid(LevelModel level) {
+        TileModel[][] accent = level.getAccentLayer();
+        TileModel[][] extra = level.getExtraLayer();
+        int height = level.getHeight();
+        int width = level.getWidth();
+
+        minOffset = Integer.MAX_VALUE;
+        maxOffset = Integer.MIN_VALUE;
+        int count = 0;
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                if (accent[i][j] != null) {
+                    minOffset = Math.min(minOffset, accent[i][j].base - 3);
+                    maxOffset = Math.max(maxOffset, accent[i][j].base - 3);
+                    count++;
+                }
+                if (extra[i][j] != null) {
+                    minOffset = Math.min(minOffset, extra[i][j].base - 3);
+                    maxOffset = Math.max(maxOffset, extra[i][j].base - 3);
+                    count++;
+                }
+            }
+        }
+        tiles = new TileModel[count];
+        tileRows = new int[count];
+        tileCols = new int[count];
+        tileLayers = new TileModel[count][][];
+        runEnds = new int[count];
+        if (count == 0) {
+            minBucket = 0;
+            minOffset = 0;
+            maxOffset = 0;
+            bucketStarts = new int[1];
+            bucketEnds = new int[0];
+            return;
+        }
+
+        minBucket = minOffset;
+        int buckets = height + maxOffset - minOffset;
+        int[] sizes = new int[buckets];
+        for (int i = 0; i < height; i++) {
+            for (int j = 0; j < width; j++) {
+                if (accent[i][j] != null) {
+                    sizes[i + accent[i][j].base - 3 - minBucket]++;
+                }
+                if (extra[i][j] != null) {
+                    sizes[i + extra[i][j].base - 3 - minBucket]++;
+                }
+            }
+        }
+        bucketStarts = new int[buckets + 1];
+        for (int b = 0; b < buckets; b++) {
+            bucketStarts[b + 1] = bucketStarts[b] + sizes[b];
+        }
+        bucketEnds = new int[buckets];
+        System.arraycopy(bucketStarts, 1, bucketEnds, 0, buckets);
+        int[] fill = new int[buckets];
+        for (int i = height - 1; i >= 0; i--) {
+            for (int j = width - 1; j >= 0; j--) {
+                addTile(extra, i, j, fill);
+                addTile(accent, i, j, fill);
+            }
+        }
+
+        // Mark where each run of tiles from the same row ends, so culling can skip rows
+        for (int b = 0; b < buckets; b++) {
+            computeRuns(b);
+        }
+    }
+
+    /**
+     * Computes where each run of tiles from the same row ends in a bucket
+     */
+    private void computeRuns(int bucket) {
+        int end = bucketEnds[bucket];
+        for (int k = end - 1; k >= bucketStarts[bucket]; k--) {
+            runEnds[k] = (k + 1 < end && tileRows[k + 1] == tileRows[k]) ? runEnds[k + 1] : k + 1;
+        }
+    }
+
+    /**
+     * Drops the grid tiles that were removed from their layer.
+     *
+     * Only the depth rows that can hold a tile of a changed region are visited,
+     * so this costs nothing on frames where the map did not change.  Removed
+     * tiles are compacted out of their bucket, keeping the draw order of the rest.
+     *
+     * @param dirty The regions of the level changed this frame
+     */
+    public void refresh(DirtyRegions dirty) {
+        if (dirty.isEmpty() || tiles.length == 0) {
+            return;
+        }
+        int top = Math.min(dirty.getMaxRow() + maxOffset - minBucket, bucketEnds.length - 1);
+        int bottom = Math.max(dirty.getMinRow() + minOffset - minBucket, 0);
+        for (int b = bottom; b <= top; b++) {
+            int write = bucketStarts[b];
+            for (int k = bucketStarts[b]; k < bucketEnds[b]; k++) {
+                if (tileLayers[k][tileRows[k]][tileCols[k]] != tiles[k]) {
+                    continue;
+                }
+                if (write != k) {
+                    tiles[write] = tiles[k];
+                    tileRows[write] = tileRows[k];
+                    tileCols[write] = tileCols[k];
+                    tileLayers[write] = tileLayers[k];
+                }
+                write++;
+            }
+            if (write != bucketEnds[b]) {
+                for (int k = write; k < bucketEnds[b]; k++) {
+                    tiles[k] = null;
+                    tileLayers[k] = null;
+                }
+                bucketEnds[b] = write;
+                computeRuns(b);
+            }
+        }
+    }
+
+    /**
+     * Appends the tile at (i, j) of the layer to its depth bucket
+     */
+    private void addTile(TileModel[][] layer, int i, int j, int[] fill) {
+        TileModel tile = layer[i][j];
+        if (tile == null) {
+            return;
+        }
+        int b = i + tile.base - 3 - minBucket;
+        int k = bucketStarts[b] + fill[b]++;
+        tiles[k] = tile;
+        tileRows[k] = i;
+        tileCols[k] = j;
+        tileLayers[k] = layer;
+    }
+
+    /**
+     * Fills the given array with the objects to draw this frame, back to front.
+     *
+     * Grid tiles are only added if they are inside the given tile range.  Tiles
+     * removed from their layer are dropped by refresh(), which must be called
+     * first on frames where the level changed.  Moving objects and props are
+     * always added.
+     *
+     * @param out   The array to fill (cleared first)
+     * @param range The visible tile range {minCol, minRow, maxCol, maxRow}
+     */
+    public void fill(Array<GameObject> out, int[] range) {
+        out.clear();
+        sortMovers();
+
+        int m = 0;
+        int p = 0;
+        // Depth rows that can contain a tile from a visible row
+        int topBucket = Math.min(range[3] + maxOffset, minBucket + bucketStarts.length - 2);
+        int bottomBucket = Math.max(range[1] + minOffset, minBucket);
+        for (int b = topBucket; b >= bottomBucket; b--) {
+            float key = b * TILE_WIDTH;
+            // Objects with a key equal or above this row come first
+            while (true) {
+                boolean hasMover = m < movers.size && moverKeys[m] >= key;
+                boolean hasProp = p < props.size && propKeys[p] >= key;
+                if (hasMover && (!hasProp || before(moverKeys[m], moverRanks[m], propKeys[p], propRanks[p]))) {
+                    out.add(movers.get(m++));
+                } else if (hasProp) {
+                    out.add(props.get(p++));
+                } else {
+                    break;
+                }
+            }
+            addVisibleTiles(out, b - minBucket, range);
+        }
+        while (m < movers.size || p < props.size) {
+            if (p >= props.size || (m < movers.size && before(moverKeys[m], moverRanks[m], propKeys[p], propRanks[p]))) {
+                out.add(movers.get(m++));
+            } else {
+                out.add(props.get(p++));
+            }
+        }
+    }
+
+    /**
+     * Adds the visible tiles of a depth bucket to the array
+     */
+    private void addVisibleTiles(Array<GameObject> out, int bucket, int[] range) {
+        int k = bucketStarts[bucket];
+        int end = bucketEnds[bucket];
+        while (k < end) {
+            int runEnd = runEnds[k];
+            int row = tileRows[k];
+            if (row >= range[1] && row <= range[3]) {
+                // Columns decrease along the run, so skip to the first visible one
+                int lo = k;
+                int hi = runEnd;
+                while (lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (tileCols[mid] > range[2]) {
+                        lo = mid + 1;
+                    } else {
+                        hi = mid;
+                    }
+                }
+                for (int t = lo; t < runEnd && tileCols[t] >= range[0]; t++) {
+                    out.add(tiles[t]);
+                }
+            }
+            k = runEnd;
+        }
+    }
+
+    /**
+     * Re-sorts the moving objects by their current key.
+     *
+     * Objects barely move between frames, so an insertion sort over the previous
+     * order is close to linear.
+     */
+    private void sortMovers() {
+        for (int i = 0; i < movers.size; i++) {
+            moverKeys[i] = depthKey(movers.get(i));
+        }
+        for (int i = 1; i < movers.size; i++) {
+            GameObject object = movers.get(i);
+            float key = moverKeys[i];
+            int rank = moverRanks[i];
+            int j = i - 1;
+            while (j >= 0 && before(key, rank, moverKeys[j], moverRanks[j])) {
+                movers.set(j + 1, movers.get(j));
+                moverKeys[j + 1] = moverKeys[j];
+                moverRanks[j + 1] = moverRanks[j];
+                j--;
+            }
+            movers.set(j + 1, object);
+            moverKeys[j + 1] = key;
+            moverRanks[j + 1] = rank;
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.redpacts.frostpurge.game.util;
+
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Record of the parts of a tile map changed during the current frame.
+ *
+ * The map is split into square chunks of CHUNK_SIZE tiles (the same chunks as the
+ * ground cache).  Marking a tile rectangle flags every chunk it overlaps and grows
+ * a bounding rectangle of all the changes.  Systems that keep data derived from the
+ * map (draw lists, indexes, navigation) can then update only the flagged chunks
+ * instead of the whole level.
+ *
+ * The record is cleared once per frame by its owner.  Marking and clearing cost in
+ * proportion to the number of chunks touched, and neither allocates once the list
+ * of dirty chunks has grown to its working size.
+ */
+public class DirtyRegions {
+    /** Number of tiles along each side of a chunk */
+    public static final int CHUNK_SIZE = 16;
+
+    /** Width of the map in tiles */
+    private final int width;
+    /** Height of the map in tiles */
+    private final int height;
+    /** Number of chunks along the x-axis */
+    private final int chunksX;
+    /** Number of chunks along the y-axis */
+    private final int chunksY;
+    /** Dirty flag of each chunk, indexed by row * chunksX + col */
+    private final boolean[] flags;
+    /** Indices of the dirty chunks, in the order they were marked */
+    private final IntArray chunks;
+
+    /** Bounding rectangle of the changes, in tiles (inclusive) */
+    private int minCol, minRow, maxCol, maxRow;
+
+    /**
+     * Creates a new (clean) record for a map of the given size
+     *
+     * @param width  The width of the map in tiles
+     * @param height The height of the map in tiles
+     */
+    public DirtyRegions(int width, int height) {
+        this.width = width;
+        this.height = height;
+        chunksX = Math.max(1, (width + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        chunksY = Math.max(1, (height + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        flags = new boolean[chunksX * chunksY];
+        chunks = new IntArray(false, 16);
+        resetBounds();
+    }
+
+    private void resetBounds() {
+        minCol = Integer.MAX_VALUE;
+        minRow = Integer.MAX_VALUE;
+        maxCol = Integer.MIN_VALUE;
+        maxRow = Integer.MIN_VALUE;
+    }
+
+    /**
+     * Marks a rectangle of tiles as changed.
+     *
+     * The rectangle is clamped to the map.
+     *
+     * @param col  The column of the bottom left tile
+     * @param row  The row of the bottom left tile
+     * @param cols The number of columns changed
+     * @param rows The number of rows changed
+     */
+    public void mark(int col, int row, int cols, int rows) {
+        int c0 = Math.max(0, col);
+        int r0 = Math.max(0, row);
+        int c1 = Math.min(width - 1, col + cols - 1);
+        int r1 = Math.min(height - 1, row + rows - 1);
+        if (c1 < c0 || r1 < r0) {
+            return;
+        }
+        minCol = Math.min(minCol, c0);
+        minRow = Math.min(minRow, r0);
+        maxCol = Math.max(maxCol, c1);
+        maxRow = Math.max(maxRow, r1);
+        for (int cy = r0 / CHUNK_SIZE; cy <= r1 / CHUNK_SIZE; cy++) {
+            for (int cx = c0 / CHUNK_SIZE; cx <= c1 / CHUNK_SIZE; cx++) {
+                int index = cy * chunksX + cx;
+                if (!flags[index]) {
+                    flags[index] = true;
+                    chunks.add(index);
+                }
+            }
+        }
+    }
+
+    /**
+     * Clears every change, starting a new frame
+     */
+    public void clear() {
+        for (int i = 0; i < chunks.size; i++) {
+            flags[chunks.get(i)] = false;
+        }
+        chunks.clear();
+        resetBounds();
+    }
+
+    /**
+     * Returns true if nothing changed this frame
+     *
+     * @return true if nothing changed this frame
+     */
+    public boolean isEmpty() {
+        return chunks.size == 0;
+    }
+
+    /**
+     * Returns true if the given chunk changed this frame
+     *
+     * @param cx The column of the chunk
+     * @param cy The row of the chunk
+     * @return true if the given chunk changed this frame
+     */
+    public boolean isDirty(int cx, int cy) {
+        if (cx < 0 || cy < 0 || cx >= chunksX || cy >= chunksY) {
+            return false;
+        }
+        return flags[cy * chunksX + cx];
+    }
+
+    /**
+     * Returns true if any dirty chunk overlaps the given tile rectangle (inclusive)
+     *
+     * @param col0 The first column of the rectangle
+     * @param row0 The first row of the rectangle
+     * @param col1 The last column of the rectangle
+     * @param row1 The last row of the rectangle
+     * @return true if any dirty chunk overlaps the rectangle
+     */
+    public boolean overlaps(int col0, int row0, int col1, int row1) {
+        if (isEmpty() || col1 < minCol || col0 > maxCol || row1 < minRow || row0 > maxRow) {
+            return false;
+        }
+        for (int cy = Math.max(0, row0) / CHUNK_SIZE; cy <= Math.min(height - 1, row1) / CHUNK_SIZE; cy++) {
+            for (int cx = Math.max(0, col0) / CHUNK_SIZE; cx <= Math.min(width - 1, col1) / CHUNK_SIZE; cx++) {
+                if (flags[cy * chunksX + cx]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of dirty chunks
+     *
+     * @return the number of dirty chunks
+     */
+    public int getChunkCount() {
+        return chunks.size;
+    }
+
+    /**
+     * Returns the column of the k-th dirty chunk
+     *
+     * @param k The position of the chunk in the dirty list
+     * @return the column of the k-th dirty chunk
+     */
+    public int getChunkX(int k) {
+        return chunks.get(k) % chunksX;
+    }
+
+    /**
+     * Returns the row of the k-th dirty chunk
+     *
+     * @param k The position of the chunk in the dirty list
+     * @return the row of the k-th dirty chunk
+     */
+    public int getChunkY(int k) {
+        return chunks.get(k) / chunksX;
+    }
+
+    /** Returns the first changed column (undefined if nothing changed) */
+    public int getMinCol() {
+        return minCol;
+    }
+
+    /** Returns the first changed row (undefined if nothing changed) */
+    public int getMinRow() {
+        return minRow;
+    }
+
+    /** Returns the last changed column (undefined if nothing changed) */
+    public int getMaxCol() {
+        return maxCol;
+    }
+
+    /** Returns the last changed row (undefined if nothing changed) */
+    public int getMaxRow() {
+        return maxRow;
+    }
+}
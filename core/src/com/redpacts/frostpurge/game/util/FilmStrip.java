@@ -20,6 +20,7 @@ package com.redpacts.frostpurge.game.util;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
 
 /**
  * Texture class providing flipbook animation.
@@ -57,6 +58,8 @@ public class FilmStrip extends TextureRegion {
 	private int size;	
 	/** The active animation frame */
 	private int frame;
+	/** The individual frames, if this strip comes from a texture atlas (null otherwise) */
+	private Array<? extends TextureRegion> frames;
 	
 	/**
 	 * Creates a new filmstrip from the given texture.
@@ -118,11 +121,35 @@ public class FilmStrip extends TextureRegion {
 		this.rows = rows;
 		this.cols = cols;
 		this.size = size;
+		this.x = x;
+		this.y = y;
+		this.width = width;
+		this.height = height;
 		fwidth  = width/cols;
 		fheight = height/rows;
 		setFrame(0);
 	}
 
+	/**
+	 * Creates a new filmstrip from a list of individual frames.
+	 *
+	 * This is the layout produced by a texture atlas, where each frame is packed
+	 * as its own region.  The frames must all share the same texture page for
+	 * the strip to draw without a texture switch, and should be the same size.
+	 *
+	 * @param frames 	The animation frames, in order
+	 */
+	public FilmStrip(Array<? extends TextureRegion> frames) {
+		super(frames.first());
+		this.frames = frames;
+		this.rows = 1;
+		this.cols = frames.size;
+		this.size = frames.size;
+		fwidth  = frames.first().getRegionWidth();
+		fheight = frames.first().getRegionHeight();
+		setFrame(0);
+	}
+
 	
 	/**
 	 * Returns the number of frames in this filmstrip.
@@ -155,6 +182,10 @@ public class FilmStrip extends TextureRegion {
 			return;
 		}
 		this.frame = frame;
+		if (frames != null) {
+			setRegion(frames.get(frame));
+			return;
+		}
 		int x = this.x+(frame % cols)*fwidth;
 		int y = this.y+(frame / cols)*fheight;
 		setRegion(x,y,fwidth,fheight);
@@ -170,7 +201,10 @@ public class FilmStrip extends TextureRegion {
 	 * @return a copy of this filmstrip
 	 */
 	public FilmStrip copy() {
-		return new FilmStrip( getTexture(), rows, cols, size );
+		if (frames != null) {
+			return new FilmStrip( frames );
+		}
+		return new FilmStrip( getTexture(), rows, cols, size, x, y, width, height );
 	}
 
 }
\ No newline at end of file
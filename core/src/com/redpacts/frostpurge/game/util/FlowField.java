@@ -0,0 +1,217 @@
+package com.redpacts.frostpurge.game.util;
+
+import com.redpacts.frostpurge.game.models.LevelModel;
+import com.redpacts.frostpurge.game.models.TileModel;
+
+/**
+ * Distance map of the level toward a single target cell, shared by the enemies.
+ *
+ * Every walkable cell stores its number of steps to the target, found with one
+ * breadth-first search over the same four-way moves as the tile graph.  An enemy
+ * heading for the target only has to step to its neighbour with the lowest
+ * distance, so any number of enemies chasing the player cost one search, instead of
+ * one A* search each.
+ *
+ * The search is lazy: moving the target only marks the field stale, and the search
+ * runs on the first query after that.  It does not clear the distances; every cell
+ * is stamped with the id of the search that reached it instead.
+ *
+ * Positions are mapped to cells the same way as LevelModel.getTileState(float, float).
+ */
+public class FlowField {
+    /** Distance of a cell the target cannot be reached from */
+    public static final int UNREACHED = -1;
+    /** The size of a tile in pixels */
+    private static final int TILE_SIZE = 64;
+
+    /** The level the field covers */
+    private final LevelModel level;
+    /** The number of columns of the level */
+    private final int width;
+    /** The number of rows of the level */
+    private final int height;
+    /** Whether the enemies can walk on each cell, indexed by row * width + col */
+    private final boolean[] walkable;
+    /** The distance of each cell to the target, valid where stamped by the last search */
+    private final int[] distance;
+    /** The search that last reached each cell */
+    private final int[] stamps;
+    /** Queue of the breadth-first search */
+    private final int[] queue;
+    /** Id of the last search */
+    private int search;
+
+    /** The column of the target (-1 if none yet) */
+    private int targetCol = -1;
+    /** The row of the target (-1 if none yet) */
+    private int targetRow = -1;
+    /** Whether the target moved since the last search */
+    private boolean stale;
+
+    /**
+     * Creates a new field over the given level, without a target
+     *
+     * The walkable cells are read once; obstacles never change during a level.
+     *
+     * @param level The level to cover
+     */
+    public FlowField(LevelModel level) {
+        this.level = level;
+        width = level.getWidth();
+        height = level.getHeight();
+        walkable = new boolean[width * height];
+        distance = new int[width * height];
+        stamps = new int[width * height];
+        queue = new int[width * height];
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                walkable[row * width + col] = level.getWalkTile(col, row) != null;
+            }
+        }
+    }
+
+    /**
+     * Returns the column of the cell containing the given position
+     */
+    private static int cellX(float x) {
+        return (int) Math.floor(x / TILE_SIZE) + 1;
+    }
+
+    /**
+     * Returns the row of the cell containing the given position
+     */
+    private static int cellY(float y) {
+        return (int) Math.floor(y / TILE_SIZE) + 1;
+    }
+
+    private boolean isWalkable(int col, int row) {
+        return col >= 0 && row >= 0 && col < width && row < height && walkable[row * width + col];
+    }
+
+    /**
+     * Moves the target to the cell containing the given position
+     *
+     * Nothing changes if the position is in the cell of the current target, or in a
+     * cell that cannot be walked on (the enemies keep heading for the last cell the
+     * player could be reached at).
+     *
+     * @param x The x-coordinate of the target (in pixels)
+     * @param y The y-coordinate of the target (in pixels)
+     */
+    public void setTarget(float x, float y) {
+        int col = cellX(x);
+        int row = cellY(y);
+        if ((col == targetCol && row == targetRow) || !isWalkable(col, row)) {
+            return;
+        }
+        targetCol = col;
+        targetRow = row;
+        stale = true;
+    }
+
+    /**
+     * Recomputes the distances if the target moved
+     */
+    private void refresh() {
+        if (!stale) {
+            return;
+        }
+        stale = false;
+        search++;
+        int start = targetRow * width + targetCol;
+        stamps[start] = search;
+        distance[start] = 0;
+        queue[0] = start;
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            int cell = queue[head++];
+            int col = cell % width;
+            int row = cell / width;
+            int next = distance[cell] + 1;
+            tail = visit(col + 1, row, next, tail);
+            tail = visit(col - 1, row, next, tail);
+            tail = visit(col, row + 1, next, tail);
+            tail = visit(col, row - 1, next, tail);
+        }
+    }
+
+    /**
+     * Reaches a cell during the search, returning the new end of the queue
+     */
+    private int visit(int col, int row, int steps, int tail) {
+        if (!isWalkable(col, row)) {
+            return tail;
+        }
+        int cell = row * width + col;
+        if (stamps[cell] == search) {
+            return tail;
+        }
+        stamps[cell] = search;
+        distance[cell] = steps;
+        queue[tail] = cell;
+        return tail + 1;
+    }
+
+    /**
+     * Returns the number of steps from a cell to the target (UNREACHED if none)
+     *
+     * @param col The column of the cell
+     * @param row The row of the cell
+     * @return the number of steps from the cell to the target
+     */
+    public int getDistance(int col, int row) {
+        if (targetCol < 0) {
+            return UNREACHED;
+        }
+        refresh();
+        if (!isWalkable(col, row) || stamps[row * width + col] != search) {
+            return UNREACHED;
+        }
+        return distance[row * width + col];
+    }
+
+    /**
+     * Returns true if the given position is in the cell of the target
+     *
+     * @param x The x-coordinate of the position (in pixels)
+     * @param y The y-coordinate of the position (in pixels)
+     * @return true if the given position is in the cell of the target
+     */
+    public boolean isAtTarget(float x, float y) {
+        return cellX(x) == targetCol && cellY(y) == targetRow;
+    }
+
+    /**
+     * Returns the tile to step to from the given position to get closer to the target
+     *
+     * This is the neighbour of the cell with the lowest distance, which also gets an
+     * enemy pushed into an obstacle cell back onto the field.  Returns null at the
+     * target, or if the target cannot be reached from here.
+     *
+     * @param x The x-coordinate of the position (in pixels)
+     * @param y The y-coordinate of the position (in pixels)
+     * @return the tile to step to
+     */
+    public TileModel next(float x, float y) {
+        int col = cellX(x);
+        int row = cellY(y);
+        int best = getDistance(col, row);
+        if (best == 0) {
+            return null;
+        }
+        int bestCol = -1;
+        int bestRow = -1;
+        for (int k = 0; k < 4; k++) {
+            int c = col + (k == 0 ? 1 : k == 1 ? -1 : 0);
+            int r = row + (k == 2 ? 1 : k == 3 ? -1 : 0);
+            int d = getDistance(c, r);
+            if (d != UNREACHED && (best == UNREACHED || d < best)) {
+                best = d;
+                bestCol = c;
+                bestRow = r;
+            }
+        }
+        return bestCol < 0 ? null : level.getWalkTile(bestCol, bestRow);
+    }
+}
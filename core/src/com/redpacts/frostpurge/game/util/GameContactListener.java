@@ -5,12 +5,17 @@ import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.physics.box2d.*;
 import com.redpacts.frostpurge.game.assets.AssetDirectory;
+import com.redpacts.frostpurge.game.controllers.CollisionController;
+import com.redpacts.frostpurge.game.controllers.CollisionController.PhysicsConstants;
 import com.redpacts.frostpurge.game.models.*;
 
 import java.util.Objects;
 import java.util.logging.Level;
 
 public class GameContactListener implements ContactListener {
+    /** System property naming the file to record the contacts to */
+    public static final String RECORD_PROPERTY = "frostpurge.contacts";
+
     private World world;
     private LevelModel board;
     private Sound collide;
@@ -19,6 +24,20 @@ public class GameContactListener implements ContactListener {
     private Sound hit;
     private float volume;
     private float time;
+    /** The contact handlers run after the step, by the categories of the fixtures */
+    private ContactDispatchTable dispatch;
+    /** The handlers deciding, during the step, whether a new contact is enabled */
+    private ContactDispatchTable filters;
+    /** The contacts that began during the current step */
+    private ContactEventQueue events;
+    /** Whether the player took a hit from an enemy during the current step */
+    private boolean pendingHit;
+    /** Cache for the direction of a hit */
+    private final Vector2 direction = new Vector2();
+    /** The recorded contacts (null if not recording) */
+    private StringBuilder recording;
+    /** Nanoseconds spent in beginContact since the last call to takeCallbackTime() */
+    private long callbackTime;
 
     public GameContactListener(World world, LevelModel board, AssetDirectory assets, float volume){
         this.world = world;
@@ -29,20 +48,29 @@ public class GameContactListener implements ContactListener {
         hit = assets.getEntry("Hit",Sound.class);
         this.volume = volume;
         time = 0;
+        dispatch = new ContactDispatchTable();
+        filters = new ContactDispatchTable();
+        events = new ContactEventQueue(64);
+        registerHandlers();
+        registerFilters();
+        if (System.getProperty(RECORD_PROPERTY) != null) {
+            recording = new StringBuilder();
+        }
     }
 
     /**
      * Callback method for the start of a collision
      *
-     * This method is called when we first get a collision between two objects.  We use
-     * this method to test if it is the "right" kind of collision.  In particular, we
-     * use it to test if we made it to the win door.
+     * This method is called in the middle of the world step, when we first get a
+     * collision between two objects.  It only decides whether the contact is enabled
+     * and queues it; the game logic runs in processEvents() once the step is over.
      *
      * @param contact The two bodies that collided
      */
     @Override
     public void beginContact(Contact contact) {
         //System.out.println("CONTACTED");
+        long start = System.nanoTime();
         Body body1 = contact.getFixtureA().getBody();
         Body body2 = contact.getFixtureB().getBody();
         GameObject obj1 = (GameObject)body1.getUserData();
@@ -50,8 +78,57 @@ public class GameContactListener implements ContactListener {
 
         // If either object is the avatar, change color
         if (obj1 != null && obj2 != null) {
-            processCollision(contact, obj1, obj2, contact.getFixtureA(), contact.getFixtureB());
+            if (recording != null) {
+                record(contact.getFixtureA(), contact.getFixtureB(), obj1, obj2);
+            }
+            ContactEvent event = events.add();
+            event.set(contact, obj1, obj2);
+            filters.dispatch(event);
+            if (!event.enabled) {
+                contact.setEnabled(false);
+            }
+        }
+        callbackTime += System.nanoTime() - start;
+    }
+
+    /**
+     * Returns the time spent in the contact callbacks since the last call, and restarts the count
+     *
+     * @return the time spent in the contact callbacks, in nanoseconds
+     */
+    public long takeCallbackTime() {
+        long elapsed = callbackTime;
+        callbackTime = 0;
+        return elapsed;
+    }
+
+    /**
+     * Forgets the contacts of the last step and the sound cooldown, for a new attempt
+     */
+    public void reset() {
+        ContactEvent event = events.poll();
+        while (event != null) {
+            event.reset();
+            event = events.poll();
+        }
+        pendingHit = false;
+        callbackTime = 0;
+        time = 0;
+    }
+
+    /**
+     * Handles the contacts that began during the last step, in the order they began.
+     *
+     * This must be called after every world step.
+     */
+    public void processEvents() {
+        ContactEvent event = events.poll();
+        while (event != null) {
+            dispatch.dispatch(event);
+            event.reset();
+            event = events.poll();
         }
+        pendingHit = false;
     }
 
     /**
@@ -71,90 +148,179 @@ public class GameContactListener implements ContactListener {
     @Override
     public void preSolve(Contact contact, Manifold oldManifold) {}
 
-    protected void processCollision(Contact contact, GameObject obj1, GameObject obj2, Fixture fixtureA, Fixture fixtureB) {
-        if (obj1 instanceof PlayerModel && obj2 instanceof PlayerModel) {
-            handleCollision((PlayerModel) obj1, (PlayerModel) obj2);
-        } else if (obj1 instanceof PlayerModel && obj2 instanceof EnemyModel) {
-            handleCollision(contact, (PlayerModel) obj1, (EnemyModel) obj2);
-        } else if (obj1 instanceof PlayerModel && obj2 instanceof ObstacleTile) {
-            handleCollision((PlayerModel) obj1, (ObstacleTile) obj2);
-        } else if (obj1 instanceof PlayerModel && obj2 instanceof SwampTile) {
-            handleCollision((PlayerModel) obj1, (SwampTile) obj2);
-        } else if (obj1 instanceof PlayerModel && obj2 instanceof GoalTile && fixtureB.isSensor()) {
-            handleCollision((PlayerModel) obj1, (GoalTile) obj2);
-        } else if (obj1 instanceof PlayerModel && obj2 instanceof BouncyTile) {
-            handleCollision(contact, (PlayerModel) obj1, (BouncyTile) obj2);
-        } else if (obj1 instanceof PlayerModel && obj2 instanceof BreakableTile) {
-            handleCollision(contact, (PlayerModel) obj1, (BreakableTile) obj2);
-        }
+    /**
+     * Registers the handler of every pair of categories that can collide.
+     *
+     * Pairs without a handler (such as the sensor of a goal that was already reached,
+     * which is moved to the empty category) are ignored.
+     */
+    private void registerHandlers() {
+        ContactDispatchTable.Handler playerEnemy = new ContactDispatchTable.Handler() {
+            @Override
+            public void handle(ContactEvent event, GameObject first, GameObject second) {
+                handleCollision(event, (PlayerModel) first, (EnemyModel) second);
+            }
+        };
+        dispatch.register(PhysicsConstants.CATEGORY_PLAYER, PhysicsConstants.CATEGORY_ENEMY_DUCK, playerEnemy);
+        dispatch.register(PhysicsConstants.CATEGORY_PLAYER, PhysicsConstants.CATEGORY_ENEMY_BAT, playerEnemy);
+        dispatch.register(PhysicsConstants.CATEGORY_PLAYER, PhysicsConstants.CATEGORY_ENEMY_FLIES, playerEnemy);
 
-        else if (obj1 instanceof EnemyModel && obj2 instanceof PlayerModel) {
-            handleCollision(contact, (PlayerModel) obj2, (EnemyModel) obj1);
-        } else if (obj1 instanceof EnemyModel && obj2 instanceof EnemyModel) {
-            handleCollision((EnemyModel) obj1, (EnemyModel) obj2);
-        } else if (obj1 instanceof EnemyModel && obj2 instanceof ObstacleTile) {
-            handleCollision((EnemyModel) obj1, (ObstacleTile) obj2);
-        } else if (obj1 instanceof EnemyModel && obj2 instanceof BouncyTile) {
-            handleCollision((EnemyModel) obj1, (BouncyTile) obj2);
-        }
+        dispatch.register(PhysicsConstants.CATEGORY_PLAYER, PhysicsConstants.CATEGORY_OBSTACLE, new ContactDispatchTable.Handler() {
+            @Override
+            public void handle(ContactEvent event, GameObject first, GameObject second) {
+                // The posts of the goal are obstacles too, but never made a sound
+                if (second instanceof ObstacleTile) {
+                    handleCollision((PlayerModel) first, (ObstacleTile) second);
+                }
+            }
+        });
+        dispatch.register(PhysicsConstants.CATEGORY_PLAYER, PhysicsConstants.CATEGORY_SWAMP, new ContactDispatchTable.Handler() {
+            @Override
+            public void handle(ContactEvent event, GameObject first, GameObject second) {
+                handleCollision((PlayerModel) first, (SwampTile) second);
+            }
+        });
+        dispatch.register(PhysicsConstants.CATEGORY_PLAYER, PhysicsConstants.CATEGORY_GOAL, new ContactDispatchTable.Handler() {
+            @Override
+            public void handle(ContactEvent event, GameObject first, GameObject second) {
+                handleCollision((PlayerModel) first, (GoalTile) second);
+            }
+        });
+        dispatch.register(PhysicsConstants.CATEGORY_PLAYER, PhysicsConstants.CATEGORY_BOUNCY, new ContactDispatchTable.Handler() {
+            @Override
+            public void handle(ContactEvent event, GameObject first, GameObject second) {
+                handleCollision(event, (PlayerModel) first, (BouncyTile) second);
+            }
+        });
+        dispatch.register(PhysicsConstants.CATEGORY_PLAYER, PhysicsConstants.CATEGORY_DESTRUCTIBLE, new ContactDispatchTable.Handler() {
+            @Override
+            public void handle(ContactEvent event, GameObject first, GameObject second) {
+                handleCollision(event, (PlayerModel) first, (BreakableTile) second);
+            }
+        });
 
-        else if (obj1 instanceof ObstacleTile && obj2 instanceof PlayerModel) {
-            handleCollision((PlayerModel) obj2, (ObstacleTile) obj1);
-        } else if (obj1 instanceof ObstacleTile && obj2 instanceof EnemyModel) {
-            handleCollision((EnemyModel) obj2, (ObstacleTile) obj1);
-        }
+        ContactDispatchTable.Handler enemyBouncy = new ContactDispatchTable.Handler() {
+            @Override
+            public void handle(ContactEvent event, GameObject first, GameObject second) {
+                handleCollision((EnemyModel) first, (BouncyTile) second);
+            }
+        };
+        dispatch.register(PhysicsConstants.CATEGORY_ENEMY_DUCK, PhysicsConstants.CATEGORY_BOUNCY, enemyBouncy);
+        dispatch.register(PhysicsConstants.CATEGORY_ENEMY_BAT, PhysicsConstants.CATEGORY_BOUNCY, enemyBouncy);
+        dispatch.register(PhysicsConstants.CATEGORY_ENEMY_FLIES, PhysicsConstants.CATEGORY_BOUNCY, enemyBouncy);
 
-        else if (obj1 instanceof SwampTile && obj2 instanceof PlayerModel) {
-            handleCollision((PlayerModel) obj2, (SwampTile) obj1);
-        }
+        dispatch.register(PhysicsConstants.CATEGORY_ENEMY_DUCK, PhysicsConstants.CATEGORY_OBSTACLE, new ContactDispatchTable.Handler() {
+            @Override
+            public void handle(ContactEvent event, GameObject first, GameObject second) {
+                if (second instanceof ObstacleTile) {
+                    handleCollision((EnemyModel) first, (ObstacleTile) second);
+                }
+            }
+        });
 
-        else if (obj1 instanceof GoalTile && fixtureA.isSensor() && obj2 instanceof PlayerModel) {
-            handleCollision((PlayerModel) obj2, (GoalTile) obj1);
-        }
+        ContactDispatchTable.Handler enemyEnemy = new ContactDispatchTable.Handler() {
+            @Override
+            public void handle(ContactEvent event, GameObject first, GameObject second) {
+                handleCollision((EnemyModel) first, (EnemyModel) second);
+            }
+        };
+        dispatch.register(PhysicsConstants.CATEGORY_ENEMY_DUCK, PhysicsConstants.CATEGORY_ENEMY_DUCK, enemyEnemy);
+        dispatch.register(PhysicsConstants.CATEGORY_ENEMY_BAT, PhysicsConstants.CATEGORY_ENEMY_BAT, enemyEnemy);
+        dispatch.register(PhysicsConstants.CATEGORY_ENEMY_FLIES, PhysicsConstants.CATEGORY_ENEMY_FLIES, enemyEnemy);
+        dispatch.register(PhysicsConstants.CATEGORY_ENEMY_BAT, PhysicsConstants.CATEGORY_ENEMY_FLIES, enemyEnemy);
+    }
 
-        else if (obj1 instanceof BouncyTile && obj2 instanceof PlayerModel) {
-            handleCollision(contact, (PlayerModel) obj2, (BouncyTile) obj1);
-        } else if (obj1 instanceof BouncyTile && obj2 instanceof EnemyModel) {
-            handleCollision((EnemyModel) obj2, (BouncyTile) obj1);
-        }
+    /**
+     * Registers the decisions that have to be made while the contact begins.
+     *
+     * A contact can only be disabled from within the step, so these look at the
+     * state of the player at that time: hits while invincible go through the enemy,
+     * and a fast enough player goes through the breakable it smashes.
+     */
+    private void registerFilters() {
+        ContactDispatchTable.Handler playerEnemy = new ContactDispatchTable.Handler() {
+            @Override
+            public void handle(ContactEvent event, GameObject first, GameObject second) {
+                PlayerModel player = (PlayerModel) first;
+                if (player.getInvincibility() || player.getGameOver() || pendingHit) {
+                    event.enabled = false;
+                } else if (!Objects.equals(((EnemyModel) second).getEnemyType(), "flies")) {
+                    // The hit makes the player invincible once it is handled
+                    pendingHit = true;
+                }
+            }
+        };
+        filters.register(PhysicsConstants.CATEGORY_PLAYER, PhysicsConstants.CATEGORY_ENEMY_DUCK, playerEnemy);
+        filters.register(PhysicsConstants.CATEGORY_PLAYER, PhysicsConstants.CATEGORY_ENEMY_BAT, playerEnemy);
+        filters.register(PhysicsConstants.CATEGORY_PLAYER, PhysicsConstants.CATEGORY_ENEMY_FLIES, playerEnemy);
 
-        else if (obj1 instanceof BreakableTile && obj2 instanceof PlayerModel) {
-            handleCollision(contact, (PlayerModel) obj2, (BreakableTile) obj1);
-        }
+        filters.register(PhysicsConstants.CATEGORY_PLAYER, PhysicsConstants.CATEGORY_DESTRUCTIBLE, new ContactDispatchTable.Handler() {
+            @Override
+            public void handle(ContactEvent event, GameObject first, GameObject second) {
+                // TODO: Implement actual break speed
+                if (((PlayerModel) first).getBody().getLinearVelocity().len() > 105) {
+                    event.enabled = false;
+                }
+            }
+        });
     }
 
     /**
-     * Handles collisions between a player and an enemy
+     * Appends a contact to the recording, if one was requested.
+     *
+     * Each line holds the categories of the fixtures, the classes of the objects and
+     * whether each fixture is a sensor.  The recording is replayed by the contact
+     * dispatch benchmark of the desktop tools.
+     */
+    private void record(Fixture fixtureA, Fixture fixtureB, GameObject obj1, GameObject obj2) {
+        recording.append(fixtureA.getFilterData().categoryBits).append(',')
+                .append(fixtureB.getFilterData().categoryBits).append(',')
+                .append(obj1.getClass().getSimpleName()).append(',')
+                .append(obj2.getClass().getSimpleName()).append(',')
+                .append(fixtureA.isSensor()).append(',')
+                .append(fixtureB.isSensor()).append('\n');
+    }
+
+    /**
+     * Appends the recorded contacts to the recording file and starts a new recording.
      *
-     * @param player    The player
-     * @param player2   Other player
+     * Does nothing unless the game was started with -D{@value #RECORD_PROPERTY}=file.
      */
-    private void handleCollision(PlayerModel player, PlayerModel player2) {}
+    public void saveRecording() {
+        if (recording == null || recording.length() == 0) {
+            return;
+        }
+        Gdx.files.local(System.getProperty(RECORD_PROPERTY)).writeString(recording.toString(), true);
+        recording.setLength(0);
+    }
+
     /**
      * Handles collisions between a player and an enemy
      *
      * @param player The player
      * @param enemy  The enemy
      */
-    private void handleCollision(Contact contact, PlayerModel player, EnemyModel enemy) {
-        if(!player.getInvincibility() && !player.getGameOver()) { // Player is not invincible, nor the gameplay is over
+    private void handleCollision(ContactEvent event, PlayerModel player, EnemyModel enemy) {
+        if (event.enabled) { // Player was not invincible, nor the gameplay was over
             if(Objects.equals(enemy.getEnemyType(), "flies")){
                 player.getBody().setLinearVelocity(player.getBody().getLinearVelocity().scl(0.25f));
                 player.addHp(-1);
             }else{
-                Vector2 contactDirection = player.getPosition().cpy().sub(enemy.getPosition()).nor();
+                direction.set(player.getPosition()).sub(enemy.getPosition()).nor();
                 player.addHp(-15);
                 player.setShake(true);
-                player.getBody().applyForceToCenter(contactDirection.scl(50), true);
-                enemy.getBody().applyForceToCenter(contactDirection.scl(-50), true);
+                // Impulses, as the force of a full step, so the knockback does not depend
+                // on the length of the sub-step the hit happened in
+                direction.scl(50 * CollisionController.WORLD_STEP);
+                player.getBody().applyLinearImpulse(direction, player.getBody().getWorldCenter(), true);
+                direction.scl(-50);
+                enemy.getBody().applyLinearImpulse(direction, enemy.getBody().getWorldCenter(), true);
                 if (time>.5f){
                     hit.play(volume*2f);
                     time = 0;
                 }
                 player.startInvincibility();
             }
-        } else { // Player is invincible
-            contact.setEnabled(false);
         }
     }
 
@@ -211,9 +377,9 @@ public class GameContactListener implements ContactListener {
      * @param player The player
      * @param tile   The tile
      */
-    private void handleCollision(Contact contact, PlayerModel player, BouncyTile tile) {
-        int xDirection = tile.checkBoundLeftRight(contact.getWorldManifold().getPoints()[0]);
-        int yDirection = tile.checkBoundTopBottom(contact.getWorldManifold().getPoints()[0]);
+    private void handleCollision(ContactEvent event, PlayerModel player, BouncyTile tile) {
+        int xDirection = tile.checkBoundLeftRight(event.point);
+        int yDirection = tile.checkBoundTopBottom(event.point);
         player.getBody().setLinearVelocity(player.getBody().getLinearVelocity().scl(4 * xDirection, 4 * yDirection));
         bounce.play(volume);
         tile.activate();
@@ -224,11 +390,10 @@ public class GameContactListener implements ContactListener {
      * @param player The player
      * @param tile   The tile
      */
-    private void handleCollision(Contact contact, PlayerModel player, BreakableTile tile) {
-        // TODO: Implement actual break speed
-        if (player.getBody().getLinearVelocity().len() > 105) {
-            contact.setEnabled(false);
+    private void handleCollision(ContactEvent event, PlayerModel player, BreakableTile tile) {
+        if (!event.enabled) { // Fast enough to break through
             tile.deactivate();
+            board.markDirtyArea(tile.getPosition().x, tile.getPosition().y, 128, 128);
             player.setShake(true);
             breakBox.play(volume*1.5f);
         }else{
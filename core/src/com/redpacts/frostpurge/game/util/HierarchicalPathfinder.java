@@ -0,0 +1,450 @@
+package com.redpacts.frostpurge.game.util;
+
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntIntMap;
+import com.redpacts.frostpurge.game.models.LevelModel;
+import com.redpacts.frostpurge.game.models.TileModel;
+
+/**
+ * Hierarchical pathfinder (HPA*) over the walkable cells of a level.
+ *
+ * The level is split into square clusters of CLUSTER_SIZE cells.  Where two
+ * neighbouring clusters share a run of walkable cells along their border, the middle
+ * of the run becomes an entrance: a pair of abstract nodes, one on each side.  The
+ * abstract graph links the entrances of a cluster with their walking distance inside
+ * the cluster, and the two sides of an entrance with a single step.  All of this is
+ * computed once, when the level is loaded.
+ *
+ * A long search then only explores the clusters around its two ends and the abstract
+ * graph, and only the first leg of the route (to the next cluster) is refined into
+ * tiles.  The enemy asks again once it gets there, so the cost of a route is spread
+ * over the time it takes to walk it.  Searches within a single cluster are left to
+ * the fallback pathfinder, which returns the whole path.
+ *
+ * Moves are four-way with unit cost, as in the tile graph.  Cells are walkable where
+ * LevelModel.getWalkTile() returns a tile; obstacles never change during a level.
+ */
+public class HierarchicalPathfinder implements TilePathfinder {
+    /** Number of cells along each side of a cluster */
+    public static final int CLUSTER_SIZE = 16;
+    /** Number of cells in a cluster */
+    private static final int AREA = CLUSTER_SIZE * CLUSTER_SIZE;
+    /** The size of a tile in pixels */
+    private static final int TILE_SIZE = 64;
+
+    /** The level searched */
+    private final LevelModel level;
+    /** The pathfinder for searches within a single cluster */
+    private final TilePathfinder fallback;
+    /** The number of columns of the level */
+    private final int width;
+    /** The number of rows of the level */
+    private final int height;
+    /** The number of clusters along the x-axis */
+    private final int clustersX;
+    /** Whether each cell can be walked on, indexed by row * width + col */
+    private final boolean[] walkable;
+
+    /** The cell of each abstract node */
+    private final IntArray nodeCells = new IntArray();
+    /** The abstract node at each entrance cell */
+    private final IntIntMap cellNodes = new IntIntMap();
+    /** The abstract nodes of each cluster */
+    private final IntArray[] clusterNodes;
+    /** The edges of each abstract node, as (node, cost) pairs */
+    private IntArray[] edges;
+    /** Number of abstract nodes, not counting the goal */
+    private int nodeCount;
+
+    /** Cost of each abstract node from the start, valid where stamped by the last search */
+    private int[] costs;
+    /** The node each abstract node was reached from (-1 for the start) */
+    private int[] parents;
+    /** The search that last reached each abstract node */
+    private int[] stamps;
+    /** The search that last expanded each abstract node */
+    private int[] closed;
+    /** Id of the last search */
+    private int search;
+    /** Open list of the abstract search (binary heap of nodes) */
+    private int[] heapNodes;
+    /** Priorities of the entries in the open list */
+    private int[] heapKeys;
+    /** Number of entries in the open list */
+    private int heapSize;
+
+    /** Distances from the start within its cluster */
+    private final int[] startDistance = new int[AREA];
+    /** Parents of the cells reached from the start within its cluster */
+    private final int[] startParents = new int[AREA];
+    /** Distances from the goal within its cluster */
+    private final int[] goalDistance = new int[AREA];
+    /** Queue of the searches within a cluster */
+    private final int[] queue = new int[AREA];
+
+    /**
+     * Builds the abstract graph of the given level
+     *
+     * @param level    The level to search
+     * @param fallback The pathfinder for searches within a single cluster
+     */
+    public HierarchicalPathfinder(LevelModel level, TilePathfinder fallback) {
+        this.level = level;
+        this.fallback = fallback;
+        width = level.getWidth();
+        height = level.getHeight();
+        clustersX = (width + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+        int clustersY = (height + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+        walkable = new boolean[width * height];
+        for (int row = 0; row < height; row++) {
+            for (int col = 0; col < width; col++) {
+                walkable[row * width + col] = level.getWalkTile(col, row) != null;
+            }
+        }
+        clusterNodes = new IntArray[clustersX * clustersY];
+        for (int i = 0; i < clusterNodes.length; i++) {
+            clusterNodes[i] = new IntArray(false, 8);
+        }
+        edges = new IntArray[16];
+
+        // Entrances along the borders to the east and to the north of each cluster
+        for (int cy = 0; cy < clustersY; cy++) {
+            for (int cx = 0; cx < clustersX; cx++) {
+                int x0 = cx * CLUSTER_SIZE;
+                int y0 = cy * CLUSTER_SIZE;
+                int east = x0 + CLUSTER_SIZE - 1;
+                if (east + 1 < width) {
+                    addEntrances(east, y0, 0, 1, Math.min(CLUSTER_SIZE, height - y0), 1, 0);
+                }
+                int north = y0 + CLUSTER_SIZE - 1;
+                if (north + 1 < height) {
+                    addEntrances(x0, north, 1, 0, Math.min(CLUSTER_SIZE, width - x0), 0, 1);
+                }
+            }
+        }
+
+        // Walking distances between the entrances of each cluster
+        for (int cluster = 0; cluster < clusterNodes.length; cluster++) {
+            IntArray nodes = clusterNodes[cluster];
+            for (int i = 0; i < nodes.size; i++) {
+                int from = nodes.get(i);
+                explore(nodeCells.get(from), startDistance, null);
+                for (int j = 0; j < nodes.size; j++) {
+                    int to = nodes.get(j);
+                    int d = startDistance[local(nodeCells.get(to))];
+                    if (i != j && d > 0) {
+                        edges[from].add(to, d);
+                    }
+                }
+            }
+        }
+
+        int pushes = nodeCount + 1;
+        for (int i = 0; i < nodeCount; i++) {
+            pushes += edges[i].size / 2 + 1;
+        }
+        costs = new int[nodeCount + 1];
+        parents = new int[nodeCount + 1];
+        stamps = new int[nodeCount + 1];
+        closed = new int[nodeCount + 1];
+        heapNodes = new int[pushes];
+        heapKeys = new int[pushes];
+    }
+
+    /**
+     * Adds an entrance in the middle of every run of crossable cells along a border
+     *
+     * @param col     The first cell of the border on the near side
+     * @param row     The first cell of the border on the near side
+     * @param stepCol The step along the border
+     * @param stepRow The step along the border
+     * @param length  The length of the border
+     * @param dCol    The step across the border
+     * @param dRow    The step across the border
+     */
+    private void addEntrances(int col, int row, int stepCol, int stepRow, int length, int dCol, int dRow) {
+        int runStart = -1;
+        for (int k = 0; k <= length; k++) {
+            int c = col + k * stepCol;
+            int r = row + k * stepRow;
+            boolean open = k < length && isWalkable(c, r) && isWalkable(c + dCol, r + dRow);
+            if (open && runStart < 0) {
+                runStart = k;
+            } else if (!open && runStart >= 0) {
+                int middle = (runStart + k - 1) / 2;
+                int near = (row + middle * stepRow) * width + col + middle * stepCol;
+                int far = near + dRow * width + dCol;
+                int a = nodeAt(near);
+                int b = nodeAt(far);
+                edges[a].add(b, 1);
+                edges[b].add(a, 1);
+                runStart = -1;
+            }
+        }
+    }
+
+    /**
+     * Returns the abstract node at a cell, creating it if needed
+     */
+    private int nodeAt(int cell) {
+        int node = cellNodes.get(cell, -1);
+        if (node >= 0) {
+            return node;
+        }
+        node = nodeCount++;
+        if (node == edges.length) {
+            IntArray[] grown = new IntArray[edges.length * 2];
+            System.arraycopy(edges, 0, grown, 0, edges.length);
+            edges = grown;
+        }
+        edges[node] = new IntArray(8);
+        nodeCells.add(cell);
+        cellNodes.put(cell, node);
+        clusterNodes[clusterOf(cell)].add(node);
+        return node;
+    }
+
+    private boolean isWalkable(int col, int row) {
+        return col >= 0 && row >= 0 && col < width && row < height && walkable[row * width + col];
+    }
+
+    /**
+     * Returns the cluster of a cell
+     */
+    private int clusterOf(int cell) {
+        return (cell / width / CLUSTER_SIZE) * clustersX + (cell % width) / CLUSTER_SIZE;
+    }
+
+    /**
+     * Returns the index of a cell within its cluster
+     */
+    private int local(int cell) {
+        return ((cell / width) % CLUSTER_SIZE) * CLUSTER_SIZE + (cell % width) % CLUSTER_SIZE;
+    }
+
+    /**
+     * Returns the cell of a local index in the cluster of the given cell
+     */
+    private int global(int origin, int index) {
+        int row = (origin / width) / CLUSTER_SIZE * CLUSTER_SIZE + index / CLUSTER_SIZE;
+        int col = (origin % width) / CLUSTER_SIZE * CLUSTER_SIZE + index % CLUSTER_SIZE;
+        return row * width + col;
+    }
+
+    /**
+     * Computes the walking distances from a cell to the cells of its cluster
+     *
+     * @param cell     The cell to start from
+     * @param distance The distance of each local cell (-1 if it cannot be reached)
+     * @param parents  The local cell each cell was reached from (may be null)
+     */
+    private void explore(int cell, int[] distance, int[] parents) {
+        for (int i = 0; i < AREA; i++) {
+            distance[i] = -1;
+        }
+        int x0 = (cell % width) / CLUSTER_SIZE * CLUSTER_SIZE;
+        int y0 = (cell / width) / CLUSTER_SIZE * CLUSTER_SIZE;
+        int x1 = Math.min(width, x0 + CLUSTER_SIZE);
+        int y1 = Math.min(height, y0 + CLUSTER_SIZE);
+        int start = local(cell);
+        distance[start] = 0;
+        if (parents != null) {
+            parents[start] = -1;
+        }
+        queue[0] = start;
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            int index = queue[head++];
+            int col = x0 + index % CLUSTER_SIZE;
+            int row = y0 + index / CLUSTER_SIZE;
+            for (int k = 0; k < 4; k++) {
+                int c = col + (k == 0 ? 1 : k == 1 ? -1 : 0);
+                int r = row + (k == 2 ? 1 : k == 3 ? -1 : 0);
+                if (c < x0 || r < y0 || c >= x1 || r >= y1 || !walkable[r * width + c]) {
+                    continue;
+                }
+                int next = (r - y0) * CLUSTER_SIZE + (c - x0);
+                if (distance[next] < 0) {
+                    distance[next] = distance[index] + 1;
+                    if (parents != null) {
+                        parents[next] = index;
+                    }
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the cell of a tile (-1 if it is not on the level)
+     */
+    private int cellOf(TileModel tile) {
+        int col = (int) Math.floor(tile.getPosition().x / TILE_SIZE);
+        int row = (int) Math.floor(tile.getPosition().y / TILE_SIZE);
+        return level.inBounds(col, row) ? row * width + col : -1;
+    }
+
+    /**
+     * Computes the path to the next cluster on the way between two tiles
+     *
+     * Both tiles in the same cluster are left to the fallback pathfinder.  Otherwise
+     * the path ends on the first cell of the next cluster on the route.
+     *
+     * @param startTile The tile to start from
+     * @param endTile   The tile to reach
+     * @param out       The path to fill (cleared first, left empty if there is no path)
+     * @return true if a path was found
+     */
+    @Override
+    public boolean findPath(TileModel startTile, TileModel endTile, GraphPath<TileModel> out) {
+        out.clear();
+        if (startTile == null || endTile == null) {
+            return false;
+        }
+        int start = cellOf(startTile);
+        int goal = cellOf(endTile);
+        if (start < 0 || goal < 0 || !walkable[start] || !walkable[goal]) {
+            return false;
+        }
+        int startCluster = clusterOf(start);
+        int goalCluster = clusterOf(goal);
+        if (startCluster == goalCluster) {
+            return fallback.findPath(startTile, endTile, out);
+        }
+
+        explore(start, startDistance, startParents);
+        explore(goal, goalDistance, null);
+
+        // A* over the abstract graph, with the goal as an extra node
+        search++;
+        heapSize = 0;
+        int goalNode = nodeCount;
+        IntArray first = clusterNodes[startCluster];
+        for (int i = 0; i < first.size; i++) {
+            int node = first.get(i);
+            int d = startDistance[local(nodeCells.get(node))];
+            if (d >= 0) {
+                open(node, d, -1, goal);
+            }
+        }
+        boolean found = false;
+        while (heapSize > 0) {
+            int node = pop();
+            if (closed[node] == search) {
+                continue;
+            }
+            closed[node] = search;
+            if (node == goalNode) {
+                found = true;
+                break;
+            }
+            int cell = nodeCells.get(node);
+            if (clusterOf(cell) == goalCluster) {
+                int d = goalDistance[local(cell)];
+                if (d >= 0) {
+                    open(goalNode, costs[node] + d, node, goal);
+                }
+            }
+            IntArray links = edges[node];
+            for (int i = 0; i < links.size; i += 2) {
+                open(links.get(i), costs[node] + links.get(i + 1), node, goal);
+            }
+        }
+        if (!found) {
+            return false;
+        }
+
+        // The first entrance of the route, and the node it leads to
+        int next = goalNode;
+        int exit = parents[goalNode];
+        while (parents[exit] >= 0) {
+            next = exit;
+            exit = parents[exit];
+        }
+
+        // Refine the first leg: start to the exit, then across the border
+        if (next == goalNode) {
+            out.add(endTile);
+        } else {
+            int cell = nodeCells.get(next);
+            out.add(cell == goal ? endTile : level.getWalkTile(cell % width, cell / width));
+        }
+        int index = local(nodeCells.get(exit));
+        while (startParents[index] >= 0) {
+            int cell = global(start, index);
+            out.add(level.getWalkTile(cell % width, cell / width));
+            index = startParents[index];
+        }
+        out.add(startTile);
+        out.reverse();
+        return true;
+    }
+
+    /**
+     * Reaches an abstract node, if this is the cheapest way found so far
+     */
+    private void open(int node, int cost, int parent, int goal) {
+        if (closed[node] == search || (stamps[node] == search && costs[node] <= cost)) {
+            return;
+        }
+        stamps[node] = search;
+        costs[node] = cost;
+        parents[node] = parent;
+        int estimate = 0;
+        if (node < nodeCount) {
+            int cell = nodeCells.get(node);
+            estimate = Math.abs(cell % width - goal % width) + Math.abs(cell / width - goal / width);
+        }
+        push(node, cost + estimate);
+    }
+
+    /**
+     * Adds an entry to the open list
+     */
+    private void push(int node, int key) {
+        if (heapSize == heapNodes.length) {
+            int[] nodes = new int[heapNodes.length * 2];
+            int[] keys = new int[heapKeys.length * 2];
+            System.arraycopy(heapNodes, 0, nodes, 0, heapSize);
+            System.arraycopy(heapKeys, 0, keys, 0, heapSize);
+            heapNodes = nodes;
+            heapKeys = keys;
+        }
+        int k = heapSize++;
+        while (k > 0 && heapKeys[(k - 1) / 2] > key) {
+            heapNodes[k] = heapNodes[(k - 1) / 2];
+            heapKeys[k] = heapKeys[(k - 1) / 2];
+            k = (k - 1) / 2;
+        }
+        heapNodes[k] = node;
+        heapKeys[k] = key;
+    }
+
+    /**
+     * Removes the entry with the lowest priority from the open list
+     */
+    private int pop() {
+        int top = heapNodes[0];
+        heapSize--;
+        int node = heapNodes[heapSize];
+        int key = heapKeys[heapSize];
+        int k = 0;
+        while (2 * k + 1 < heapSize) {
+            int child = 2 * k + 1;
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                child++;
+            }
+            if (heapKeys[child] >= key) {
+                break;
+            }
+            heapNodes[k] = heapNodes[child];
+            heapKeys[k] = heapKeys[child];
+            k = child;
+        }
+        heapNodes[k] = node;
+        heapKeys[k] = key;
+        return top;
+    }
+}
@@ -0,0 +1,297 @@
+package com.redpacts.frostpurge.game.util;
+
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.redpacts.frostpurge.game.models.LevelModel;
+import com.redpacts.frostpurge.game.models.TileModel;
+
+/**
+ * Jump Point Search over the walkability grid of a level.
+ *
+ * The tile graph only has four-way moves of unit cost, so most of the nodes an A*
+ * search opens are on straight corridors or open floor that any shortest path
+ * crosses the same way.  Jump Point Search skips them: from each node it scans in a
+ * straight line and only stops at the goal or at a cell where a wall ends beside the
+ * line (a forced neighbour), or, when scanning vertically, at a row from which such
+ * a cell can be reached horizontally.  The paths are as short as those of A*.
+ *
+ * The search works on the bitset from LevelModel.buildWalkGrid() rather than on the
+ * tile graph, and only looks the tiles up to write the path.  Its arrays are
+ * allocated once, and stamped with the id of the search instead of being cleared.
+ */
+public class JumpPointPathfinder implements TilePathfinder {
+    /** The size of a tile in pixels */
+    private static final int TILE_SIZE = 64;
+
+    /** The level searched */
+    private final LevelModel level;
+    /** The cells that cannot be walked on */
+    private final OccupancyGrid blocked;
+    /** The number of columns of the level */
+    private final int width;
+    /** The number of rows of the level */
+    private final int height;
+
+    /** Cost of each cell from the start, valid where stamped by the last search */
+    private final int[] costs;
+    /** The jump point each cell was reached from (-1 for the start) */
+    private final int[] parents;
+    /** The search that last reached each cell */
+    private final int[] stamps;
+    /** The search that last expanded each cell */
+    private final int[] closed;
+    /** Id of the last search */
+    private int search;
+    /** Open list (binary heap of cells) */
+    private int[] heapCells;
+    /** Priorities of the entries in the open list */
+    private int[] heapKeys;
+    /** Number of entries in the open list */
+    private int heapSize;
+
+    /** The column of the goal of the current search */
+    private int goalCol;
+    /** The row of the goal of the current search */
+    private int goalRow;
+
+    /**
+     * Creates a pathfinder over the walkability grid of a level
+     *
+     * @param level The level to search
+     */
+    public JumpPointPathfinder(LevelModel level) {
+        this.level = level;
+        blocked = level.buildWalkGrid();
+        width = level.getWidth();
+        height = level.getHeight();
+        costs = new int[width * height];
+        parents = new int[width * height];
+        stamps = new int[width * height];
+        closed = new int[width * height];
+        heapCells = new int[64];
+        heapKeys = new int[64];
+    }
+
+    private boolean isOpen(int col, int row) {
+        return col >= 0 && row >= 0 && col < width && row < height && !blocked.isBlocked(col, row);
+    }
+
+    /**
+     * Returns the cell of a tile (-1 if it is not on the level)
+     */
+    private int cellOf(TileModel tile) {
+        int col = (int) Math.floor(tile.getPosition().x / TILE_SIZE);
+        int row = (int) Math.floor(tile.getPosition().y / TILE_SIZE);
+        return level.inBounds(col, row) ? row * width + col : -1;
+    }
+
+    /**
+     * Computes the shortest path between two tiles into the given path
+     *
+     * @param startTile The tile to start from
+     * @param endTile   The tile to reach
+     * @param out       The path to fill (cleared first, left empty if there is no path)
+     * @return true if a path was found
+     */
+    @Override
+    public boolean findPath(TileModel startTile, TileModel endTile, GraphPath<TileModel> out) {
+        out.clear();
+        if (startTile == null || endTile == null) {
+            return false;
+        }
+        int start = cellOf(startTile);
+        int goal = cellOf(endTile);
+        if (start < 0 || goal < 0 || !isOpen(start % width, start / width) || !isOpen(goal % width, goal / width)) {
+            return false;
+        }
+        goalCol = goal % width;
+        goalRow = goal / width;
+
+        search++;
+        heapSize = 0;
+        open(start, 0, -1);
+        boolean found = false;
+        while (heapSize > 0) {
+            int cell = pop();
+            if (closed[cell] == search) {
+                continue;
+            }
+            closed[cell] = search;
+            if (cell == goal) {
+                found = true;
+                break;
+            }
+            expand(cell);
+        }
+        if (!found) {
+            return false;
+        }
+
+        // Walk back along the straight lines between the jump points
+        out.add(endTile);
+        int cell = goal;
+        while (parents[cell] >= 0) {
+            int parent = parents[cell];
+            int dCol = Integer.signum(parent % width - cell % width);
+            int dRow = Integer.signum(parent / width - cell / width);
+            int col = cell % width + dCol;
+            int row = cell / width + dRow;
+            while (row * width + col != parent) {
+                out.add(level.getWalkTile(col, row));
+                col += dCol;
+                row += dRow;
+            }
+            if (parent != start) {
+                out.add(level.getWalkTile(col, row));
+            }
+            cell = parent;
+        }
+        if (goal != start) {
+            out.add(startTile);
+        }
+        out.reverse();
+        return true;
+    }
+
+    /**
+     * Opens the jump points reachable from a cell
+     *
+     * The start looks in every direction; other cells keep going the way they were
+     * entered, or turn to either side.
+     */
+    private void expand(int cell) {
+        int col = cell % width;
+        int row = cell / width;
+        int parent = parents[cell];
+        if (parent < 0) {
+            successor(cell, col + 1, row);
+            successor(cell, col - 1, row);
+            successor(cell, col, row + 1);
+            successor(cell, col, row - 1);
+            return;
+        }
+        int dCol = Integer.signum(col - parent % width);
+        int dRow = Integer.signum(row - parent / width);
+        if (dCol != 0) {
+            successor(cell, col, row - 1);
+            successor(cell, col, row + 1);
+            successor(cell, col + dCol, row);
+        } else {
+            successor(cell, col - 1, row);
+            successor(cell, col + 1, row);
+            successor(cell, col, row + dRow);
+        }
+    }
+
+    /**
+     * Jumps from a cell through one of its neighbours, and opens the jump point found
+     */
+    private void successor(int cell, int col, int row) {
+        if (!isOpen(col, row)) {
+            return;
+        }
+        int point = jump(col, row, col - cell % width, row - cell / width);
+        if (point < 0) {
+            return;
+        }
+        int distance = Math.abs(point % width - cell % width) + Math.abs(point / width - cell / width);
+        open(point, costs[cell] + distance, cell);
+    }
+
+    /**
+     * Scans in a straight line for the next jump point (-1 if there is none)
+     *
+     * @param col  The column to start from
+     * @param row  The row to start from
+     * @param dCol The step along the line
+     * @param dRow The step along the line
+     * @return the cell of the jump point
+     */
+    private int jump(int col, int row, int dCol, int dRow) {
+        while (isOpen(col, row)) {
+            if (col == goalCol && row == goalRow) {
+                return row * width + col;
+            }
+            if (dCol != 0) {
+                // A wall ending beside the line opens a way to the side
+                if ((isOpen(col, row - 1) && !isOpen(col - dCol, row - 1)) ||
+                        (isOpen(col, row + 1) && !isOpen(col - dCol, row + 1))) {
+                    return row * width + col;
+                }
+            } else {
+                if ((isOpen(col - 1, row) && !isOpen(col - 1, row - dRow)) ||
+                        (isOpen(col + 1, row) && !isOpen(col + 1, row - dRow))) {
+                    return row * width + col;
+                }
+                // Moving vertically, stop where a horizontal scan finds a jump point
+                if (jump(col + 1, row, 1, 0) >= 0 || jump(col - 1, row, -1, 0) >= 0) {
+                    return row * width + col;
+                }
+            }
+            col += dCol;
+            row += dRow;
+        }
+        return -1;
+    }
+
+    /**
+     * Reaches a cell, if this is the cheapest way found so far
+     */
+    private void open(int cell, int cost, int parent) {
+        if (closed[cell] == search || (stamps[cell] == search && costs[cell] <= cost)) {
+            return;
+        }
+        stamps[cell] = search;
+        costs[cell] = cost;
+        parents[cell] = parent;
+        int estimate = Math.abs(cell % width - goalCol) + Math.abs(cell / width - goalRow);
+        push(cell, cost + estimate);
+    }
+
+    /**
+     * Adds an entry to the open list
+     */
+    private void push(int cell, int key) {
+        if (heapSize == heapCells.length) {
+            int[] cells = new int[heapCells.length * 2];
+            int[] keys = new int[heapKeys.length * 2];
+            System.arraycopy(heapCells, 0, cells, 0, heapSize);
+            System.arraycopy(heapKeys, 0, keys, 0, heapSize);
+            heapCells = cells;
+            heapKeys = keys;
+        }
+        int k = heapSize++;
+        while (k > 0 && heapKeys[(k - 1) / 2] > key) {
+            heapCells[k] = heapCells[(k - 1) / 2];
+            heapKeys[k] = heapKeys[(k - 1) / 2];
+            k = (k - 1) / 2;
+        }
+        heapCells[k] = cell;
+        heapKeys[k] = key;
+    }
+
+    /**
+     * Removes the entry with the lowest priority from the open list
+     */
+    private int pop() {
+        int top = heapCells[0];
+        heapSize--;
+        int cell = heapCells[heapSize];
+        int key = heapKeys[heapSize];
+        int k = 0;
+        while (2 * k + 1 < heapSize) {
+            int child = 2 * k + 1;
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                child++;
+            }
+            if (heapKeys[child] >= key) {
+                break;
+            }
+            heapCells[k] = heapCells[child];
+            heapKeys[k] = heapKeys[child];
+            k = child;
+        }
+        heapCells[k] = cell;
+        heapKeys[k] = key;
+        return top;
+    }
+}
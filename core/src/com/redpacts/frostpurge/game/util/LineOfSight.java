@@ -0,0 +1,132 @@
+package com.redpacts.frostpurge.game.util;
+
+import com.badlogic.gdx.math.Intersector;
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * Line of sight queries over the occupancy grid of a level.
+ *
+ * Rays walk the grid one tile at a time with the traversal of Amanatides and Woo:
+ * the distance to the next vertical and horizontal tile border is tracked along the
+ * ray, and the ray always steps across the nearest one.  A ray therefore visits
+ * exactly the tiles it crosses, and its cost depends on its length in tiles rather
+ * than on the number of bodies in the world.
+ *
+ * The result of the last cast (the hit point, and the segment that was actually
+ * travelled) is kept in this object, so casting does not allocate.  The tile the ray
+ * starts in is skipped, like a Box2D raycast ignores a fixture containing its origin.
+ */
+public class LineOfSight {
+    /** The grid to cast against */
+    private final OccupancyGrid grid;
+    /** Size of a tile in the units of the queries */
+    private final float tileSize;
+
+    /** Start of the last ray */
+    private final Vector2 start = new Vector2();
+    /** Where the last ray stopped (the first blocked tile, or its end) */
+    private final Vector2 hitPoint = new Vector2();
+    /** Whether the last ray was blocked */
+    private boolean blocked;
+    /** Cache for the circle test */
+    private final Vector2 center = new Vector2();
+
+    /**
+     * Creates a new line of sight service
+     *
+     * @param grid     The tiles blocking sight
+     * @param tileSize The size of a tile in the units of the queries
+     */
+    public LineOfSight(OccupancyGrid grid, float tileSize) {
+        this.grid = grid;
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Casts a ray, stopping at the first tile that blocks sight.
+     *
+     * @param x0 The x-coordinate of the start of the ray
+     * @param y0 The y-coordinate of the start of the ray
+     * @param x1 The x-coordinate of the end of the ray
+     * @param y1 The y-coordinate of the end of the ray
+     * @return true if the ray was blocked before its end
+     */
+    public boolean cast(float x0, float y0, float x1, float y1) {
+        start.set(x0, y0);
+        float dx = x1 - x0;
+        float dy = y1 - y0;
+        int col = (int) Math.floor(x0 / tileSize);
+        int row = (int) Math.floor(y0 / tileSize);
+        int stepX = dx > 0 ? 1 : (dx < 0 ? -1 : 0);
+        int stepY = dy > 0 ? 1 : (dy < 0 ? -1 : 0);
+
+        // Ray parameters (0 at the start, 1 at the end) of the next borders, and between borders
+        float deltaX = stepX != 0 ? tileSize / Math.abs(dx) : Float.POSITIVE_INFINITY;
+        float deltaY = stepY != 0 ? tileSize / Math.abs(dy) : Float.POSITIVE_INFINITY;
+        float nextX = stepX > 0 ? ((col + 1) * tileSize - x0) / dx
+                : (stepX < 0 ? (col * tileSize - x0) / dx : Float.POSITIVE_INFINITY);
+        float nextY = stepY > 0 ? ((row + 1) * tileSize - y0) / dy
+                : (stepY < 0 ? (row * tileSize - y0) / dy : Float.POSITIVE_INFINITY);
+
+        while (true) {
+            float t;
+            if (nextX < nextY) {
+                t = nextX;
+                nextX += deltaX;
+                col += stepX;
+            } else {
+                t = nextY;
+                nextY += deltaY;
+                row += stepY;
+            }
+            if (t > 1) {
+                break;
+            }
+            if (grid.isBlocked(col, row)) {
+                hitPoint.set(x0 + dx * t, y0 + dy * t);
+                blocked = true;
+                return true;
+            }
+        }
+        hitPoint.set(x1, y1);
+        blocked = false;
+        return false;
+    }
+
+    /**
+     * Returns where the last ray stopped.
+     *
+     * This is the point where the ray entered the first blocked tile, or the end of
+     * the ray if nothing was in the way.  The vector is reused by the next cast.
+     *
+     * @return where the last ray stopped
+     */
+    public Vector2 getHitPoint() {
+        return hitPoint;
+    }
+
+    /**
+     * Returns true if the last ray was blocked
+     *
+     * @return true if the last ray was blocked
+     */
+    public boolean isBlocked() {
+        return blocked;
+    }
+
+    /**
+     * Returns true if the travelled part of the last ray touches a circle.
+     *
+     * This is how a ray sees a target: the target is seen if it is closer than the
+     * first obstacle.
+     *
+     * @param x      The x-coordinate of the center of the circle
+     * @param y      The y-coordinate of the center of the circle
+     * @param radius The radius of the circle
+     * @return true if the travelled part of the last ray touches the circle
+     */
+    public boolean touches(float x, float y, float radius) {
+        center.set(x, y);
+        return Intersector.distSegmentPoint(start, hitPoint, center) <= radius;
+    }
+}
@@ -0,0 +1,94 @@
+package com.redpacts.frostpurge.game.util;
+
+/**
+ * Bitmap of the tiles of a level that block sight.
+ *
+ * Each tile is one bit, packed 64 to a word row by row, so a whole level fits in a
+ * few kilobytes and a lookup is a shift and a mask.  Tiles outside of the map are
+ * never blocked.
+ */
+public class OccupancyGrid {
+    /** Width of the map in tiles */
+    private final int width;
+    /** Height of the map in tiles */
+    private final int height;
+    /** The bits, indexed by row * width + col */
+    private final long[] bits;
+
+    /**
+     * Creates a new (empty) grid for a map of the given size
+     *
+     * @param width  The width of the map in tiles
+     * @param height The height of the map in tiles
+     */
+    public OccupancyGrid(int width, int height) {
+        this.width = width;
+        this.height = height;
+        bits = new long[(width * height + 63) / 64];
+    }
+
+    /** Returns the width of the grid in tiles */
+    public int getWidth() {
+        return width;
+    }
+
+    /** Returns the height of the grid in tiles */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns true if the given tile blocks sight
+     *
+     * @param col The column of the tile
+     * @param row The row of the tile
+     * @return true if the given tile blocks sight
+     */
+    public boolean isBlocked(int col, int row) {
+        if (col < 0 || row < 0 || col >= width || row >= height) {
+            return false;
+        }
+        int index = row * width + col;
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Sets whether a tile blocks sight (ignored outside of the map)
+     *
+     * @param col     The column of the tile
+     * @param row     The row of the tile
+     * @param blocked Whether the tile blocks sight
+     */
+    public void set(int col, int row, boolean blocked) {
+        if (col < 0 || row < 0 || col >= width || row >= height) {
+            return;
+        }
+        int index = row * width + col;
+        if (blocked) {
+            bits[index >>> 6] |= 1L << index;
+        } else {
+            bits[index >>> 6] &= ~(1L << index);
+        }
+    }
+
+    /**
+     * Sets whether every tile of a rectangle blocks sight (clamped to the map)
+     *
+     * @param col     The column of the bottom left tile
+     * @param row     The row of the bottom left tile
+     * @param cols    The number of columns
+     * @param rows    The number of rows
+     * @param blocked Whether the tiles block sight
+     */
+    public void fill(int col, int row, int cols, int rows, boolean blocked) {
+        int c0 = Math.max(0, col);
+        int r0 = Math.max(0, row);
+        int c1 = Math.min(width, col + cols);
+        int r1 = Math.min(height, row + rows);
+        for (int r = r0; r < r1; r++) {
+            for (int c = c0; c < c1; c++) {
+                set(c, r, blocked);
+            }
+        }
+    }
+}
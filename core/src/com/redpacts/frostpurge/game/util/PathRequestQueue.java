@@ -0,0 +1,256 @@
+package com.redpacts.frostpurge.game.util;
+
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.Pool;
+import com.redpacts.frostpurge.game.models.TileModel;
+
+/**
+ * Queue of path searches, answered within a time budget per frame.
+ *
+ * Enemies used to search for their paths the moment they needed them, so several
+ * enemies changing state on the same frame meant several searches in that frame.
+ * Searches are now requested here and answered in order of priority (lowest value
+ * first, then oldest first) by process(), which stops once the budget of the frame is
+ * spent.  The answer is delivered to the callback of the request, and the requester
+ * keeps following its previous path until then.
+ *
+ * Each owner has at most one pending request: asking again updates the previous
+ * request in place, keeping its place in the queue, so an enemy re-planning every
+ * step only costs one search when the queue gets to it, and is not pushed behind
+ * the enemies that asked after it.  The searches run on the game thread, as the tiles are not safe to
+ * share with another thread.
+ */
+public class PathRequestQueue {
+    /** Default time spent answering requests per frame, in nanoseconds */
+    public static final long DEFAULT_BUDGET = 1000000;
+
+    /**
+     * Receiver of the answer to a path request
+     */
+    public interface Callback {
+        /**
+         * Called with the answer to a request
+         *
+         * The path is only valid during the call.
+         *
+         * @param startTile The tile the search started from
+         * @param endTile   The tile the search was for
+         * @param path      The path found (empty if there is none)
+         */
+        void pathFound(TileModel startTile, TileModel endTile, GraphPath<TileModel> path);
+    }
+
+    /**
+     * A pending search
+     */
+    private static class Request implements Pool.Poolable {
+        /** The owner of the request (one pending request per owner) */
+        Object owner;
+        TileModel start;
+        TileModel end;
+        Callback callback;
+        int priority;
+        /** Order of the request, so requests of the same priority are answered in order */
+        long order;
+        /** Whether the request was replaced or cancelled */
+        boolean cancelled;
+
+        @Override
+        public void reset() {
+            owner = null;
+            start = null;
+            end = null;
+            callback = null;
+            cancelled = false;
+        }
+    }
+
+    /** The pathfinder answering the requests */
+    private final TilePathfinder pathfinder;
+    /** The requests, as a binary heap */
+    private final Array<Request> heap = new Array<>();
+    /** The pending request of each owner */
+    private final ObjectMap<Object, Request> pending = new ObjectMap<>();
+    /** Requests no longer in use */
+    private final Pool<Request> pool = new Pool<Request>() {
+        @Override
+        protected Request newObject() {
+            return new Request();
+        }
+    };
+    /** The path given to the callbacks */
+    private final GraphPath<TileModel> path = new DefaultGraphPath<>();
+    /** Number of requests made so far */
+    private long requests;
+    /** Time spent answering requests per frame */
+    private long budget = DEFAULT_BUDGET;
+
+    /**
+     * Creates a new queue answered by the given pathfinder
+     *
+     * @param pathfinder The pathfinder answering the requests
+     */
+    public PathRequestQueue(TilePathfinder pathfinder) {
+        this.pathfinder = pathfinder;
+    }
+
+    /**
+     * Sets the time spent answering requests per frame
+     *
+     * At least one request is answered per frame, whatever the budget.
+     *
+     * @param nanos The time per frame, in nanoseconds
+     */
+    public void setBudget(long nanos) {
+        budget = nanos;
+    }
+
+    /**
+     * Requests a path, replacing any pending request of the same owner
+     *
+     * A replaced request keeps its place among the requests of its priority.
+     *
+     * @param owner    The owner of the request
+     * @param start    The tile to start from
+     * @param end      The tile to reach
+     * @param priority The priority of the request (lower first)
+     * @param callback The receiver of the answer
+     */
+    public void request(Object owner, TileModel start, TileModel end, int priority, Callback callback) {
+        Request previous = pending.get(owner);
+        long order = requests++;
+        if (previous != null) {
+            // Keep the place of the owner in the queue, or re-planning every step starves it
+            order = previous.order;
+            if (previous.priority == priority && previous.start == start && previous.end == end) {
+                previous.callback = callback;
+                return;
+            }
+            if (previous.priority == priority) {
+                previous.start = start;
+                previous.end = end;
+                previous.callback = callback;
+                return;
+            }
+            previous.cancelled = true;
+        }
+        Request request = pool.obtain();
+        request.owner = owner;
+        request.start = start;
+        request.end = end;
+        request.priority = priority;
+        request.callback = callback;
+        request.order = order;
+        pending.put(owner, request);
+        push(request);
+    }
+
+    /**
+     * Cancels the pending request of an owner, if any
+     *
+     * @param owner The owner of the request
+     */
+    public void cancel(Object owner) {
+        Request previous = pending.remove(owner);
+        if (previous != null) {
+            previous.cancelled = true;
+        }
+    }
+
+    /**
+     * Returns true if the owner has a pending request
+     *
+     * @param owner The owner of the request
+     * @return true if the owner has a pending request
+     */
+    public boolean isPending(Object owner) {
+        return pending.containsKey(owner);
+    }
+
+    /**
+     * Returns the number of pending requests
+     *
+     * @return the number of pending requests
+     */
+    public int size() {
+        return pending.size;
+    }
+
+    /**
+     * Drops every pending request without answering it
+     */
+    public void clear() {
+        for (Request request : heap) {
+            pool.free(request);
+        }
+        heap.clear();
+        pending.clear();
+    }
+
+    /**
+     * Answers requests until the budget of the frame is spent
+     *
+     * Callbacks may make new requests; they wait for the next frame if the budget
+     * is spent.
+     *
+     * @return the number of requests answered
+     */
+    public int process() {
+        long start = System.nanoTime();
+        int answered = 0;
+        while (heap.size > 0 && (answered == 0 || System.nanoTime() - start < budget)) {
+            Request request = pop();
+            if (request.cancelled) {
+                pool.free(request);
+                continue;
+            }
+            pending.remove(request.owner);
+            pathfinder.findPath(request.start, request.end, path);
+            request.callback.pathFound(request.start, request.end, path);
+            pool.free(request);
+            answered++;
+        }
+        return answered;
+    }
+
+    /**
+     * Returns true if request a is answered before request b
+     */
+    private static boolean before(Request a, Request b) {
+        return a.priority < b.priority || (a.priority == b.priority && a.order < b.order);
+    }
+
+    private void push(Request request) {
+        heap.add(request);
+        int k = heap.size - 1;
+        while (k > 0 && before(request, heap.get((k - 1) / 2))) {
+            heap.set(k, heap.get((k - 1) / 2));
+            k = (k - 1) / 2;
+        }
+        heap.set(k, request);
+    }
+
+    private Request pop() {
+        Request top = heap.get(0);
+        Request last = heap.pop();
+        if (heap.size > 0) {
+            int k = 0;
+            while (2 * k + 1 < heap.size) {
+                int child = 2 * k + 1;
+                if (child + 1 < heap.size && before(heap.get(child + 1), heap.get(child))) {
+                    child++;
+                }
+                if (!before(heap.get(child), last)) {
+                    break;
+                }
+                heap.set(k, heap.get(child));
+                k = child;
+            }
+            heap.set(k, last);
+        }
+        return top;
+    }
+}
@@ -0,0 +1,142 @@
+package com.redpacts.frostpurge.game.util;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.redpacts.frostpurge.game.models.EnemyModel;
+
+import java.util.Objects;
+
+/**
+ * Chooses which enemies check their vision cone on each step.
+ *
+ * Checking every enemy on every step makes the cost of perception grow with the
+ * number of enemies in a level.  This scheduler instead spends a fixed budget of rays
+ * per step.  Enemies that are chasing or looking for the player come first, then the
+ * others from the closest to the furthest, with the time since their last check
+ * shortening their distance so that far away enemies still get their turn.
+ *
+ * Detection latency is bounded: an enemy that has not looked for MAX_STALENESS steps
+ * is checked on the next step even if that goes over the budget.
+ *
+ * Bats never check their vision, and enemies with an inactive body (in a sleeping
+ * region) are skipped; they are checked as soon as they wake up.
+ */
+public class PerceptionScheduler {
+    /** Number of rays cast by one vision check */
+    public static final int RAYS_PER_CHECK = 20;
+    /** Default number of rays cast per step */
+    public static final int DEFAULT_RAY_BUDGET = 8 * RAYS_PER_CHECK;
+    /** Maximum number of steps between two checks of the same enemy */
+    public static final int MAX_STALENESS = 12;
+
+    /** Number of rays that may be cast per step */
+    private int rayBudget;
+    /** Steps since the last check of each enemy */
+    private int[] staleness;
+    /** Sort key of each enemy (lower first) */
+    private float[] keys;
+    /** Candidate enemies, sorted by key */
+    private int[] order;
+    /** Number of candidates */
+    private int candidates;
+    /** Number of enemies selected for this step (the first ones in order) */
+    private int selected;
+
+    /**
+     * Creates a new scheduler with the default budget
+     */
+    public PerceptionScheduler() {
+        rayBudget = DEFAULT_RAY_BUDGET;
+        staleness = new int[0];
+        keys = new float[0];
+        order = new int[0];
+    }
+
+    /**
+     * Sets the number of rays that may be cast per step
+     *
+     * @param rays The number of rays per step (at least one vision check)
+     */
+    public void setRayBudget(int rays) {
+        rayBudget = Math.max(RAYS_PER_CHECK, rays);
+    }
+
+    /**
+     * Chooses the enemies to check on this step.
+     *
+     * @param enemies The enemies of the level
+     * @param target  The position of the player (in Box2D units)
+     */
+    public void update(Array<EnemyModel> enemies, Vector2 target) {
+        if (staleness.length < enemies.size) {
+            int[] grown = new int[enemies.size];
+            System.arraycopy(staleness, 0, grown, 0, staleness.length);
+            for (int i = staleness.length; i < grown.length; i++) {
+                grown[i] = MAX_STALENESS;
+            }
+            staleness = grown;
+            keys = new float[enemies.size];
+            order = new int[enemies.size];
+        }
+
+        candidates = 0;
+        for (int i = 0; i < enemies.size; i++) {
+            EnemyModel enemy = enemies.get(i);
+            if (!enemy.getBody().isActive() || Objects.equals(enemy.getEnemyType(), "bat")) {
+                staleness[i] = MAX_STALENESS;
+                continue;
+            }
+            staleness[i]++;
+            // Waiting shortens the distance, so nobody starves behind closer enemies
+            float distance = enemy.getBody().getPosition().dst(target) / staleness[i];
+            boolean alert = enemy.getCurrentState() == EnemyStates.CHASE || enemy.getCurrentState() == EnemyStates.QUESTION;
+            if (staleness[i] >= MAX_STALENESS) {
+                keys[i] = -2;
+            } else if (alert) {
+                keys[i] = -1 / (1 + distance);
+            } else {
+                keys[i] = distance;
+            }
+            insert(i);
+        }
+
+        // Overdue enemies are always checked; the rest share the budget
+        int checks = rayBudget / RAYS_PER_CHECK;
+        selected = 0;
+        while (selected < candidates && (selected < checks || keys[order[selected]] == -2)) {
+            staleness[order[selected]] = 0;
+            selected++;
+        }
+    }
+
+    /**
+     * Inserts a candidate in the sorted order
+     */
+    private void insert(int index) {
+        int k = candidates++;
+        while (k > 0 && keys[order[k - 1]] > keys[index]) {
+            order[k] = order[k - 1];
+            k--;
+        }
+        order[k] = index;
+    }
+
+    /**
+     * Returns the number of enemies to check on this step
+     *
+     * @return the number of enemies to check on this step
+     */
+    public int size() {
+        return selected;
+    }
+
+    /**
+     * Returns the index (in the enemy array) of the k-th enemy to check
+     *
+     * @param k The position in the selection
+     * @return the index of the k-th enemy to check
+     */
+    public int get(int k) {
+        return order[k];
+    }
+}
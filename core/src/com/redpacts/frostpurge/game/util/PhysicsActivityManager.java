@@ -0,0 +1,300 @@
+package com.redpacts.frostpurge.game.util;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.physics.box2d.*;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/**
+ * Turns the physics of a level on and off by region around the player.
+ *
+ * The level is divided into square regions of REGION_SIZE tiles.  A region wakes up
+ * when the player comes within the activation radius of it, and only goes back to
+ * sleep once the player is further than the deactivation radius.  The gap between the
+ * two radii keeps regions from flickering when the player moves along a border.
+ *
+ * Static bodies are deactivated while every region they overlap is asleep, so a
+ * large merged wall stays solid as long as any part of it is near the player.
+ * Dynamic bodies (the enemies) follow the region they are currently in: an enemy in a
+ * sleeping region is parked, with its body inactive, until the region wakes again.
+ * Inactive bodies are taken out of the broadphase, so the cost of a world step
+ * depends on the neighbourhood of the player rather than the size of the level.
+ *
+ * All positions are in Box2D units.
+ */
+public class PhysicsActivityManager {
+    /** Number of tiles along each side of a region */
+    public static final int REGION_SIZE = 16;
+    /** Size of a tile in Box2D units */
+    private static final float TILE_SIZE = 6.4f;
+    /** Default distance (in tiles) from the player at which a region wakes up */
+    public static final float DEFAULT_ACTIVE_RADIUS = 32;
+    /** Default distance (in tiles) from the player at which a region goes to sleep */
+    public static final float DEFAULT_SLEEP_RADIUS = 40;
+
+    /** Number of regions along the x-axis */
+    private final int regionsX;
+    /** Number of regions along the y-axis */
+    private final int regionsY;
+    /** Whether each region is awake, indexed by row * regionsX + col */
+    private final boolean[] awake;
+    /** Static bodies overlapping each region (indices into statics) */
+    private final IntArray[] members;
+
+    /** Static bodies under management (null once removed) */
+    private final Array<Body> statics;
+    /** Index of each static body in statics */
+    private final ObjectIntMap<Body> staticIndices;
+    /** Region span of each static body (minX, minY, maxX, maxY) */
+    private final IntArray spans;
+    /** Dynamic bodies under management */
+    private final Array<Body> dynamics;
+
+    /** Distance at which a region wakes up */
+    private float activeRadius;
+    /** Distance at which a region goes to sleep */
+    private float sleepRadius;
+
+    /** Cache for fixture vertices */
+    private final Vector2 vertex = new Vector2();
+
+    /**
+     * Creates a new manager for a level of the given size, with every region awake
+     *
+     * @param width  The width of the level in tiles
+     * @param height The height of the level in tiles
+     */
+    public PhysicsActivityManager(int width, int height) {
+        regionsX = Math.max(1, (width + REGION_SIZE - 1) / REGION_SIZE);
+        regionsY = Math.max(1, (height + REGION_SIZE - 1) / REGION_SIZE);
+        awake = new boolean[regionsX * regionsY];
+        members = new IntArray[regionsX * regionsY];
+        for (int i = 0; i < members.length; i++) {
+            awake[i] = true;
+            members[i] = new IntArray(false, 16);
+        }
+        statics = new Array<>();
+        staticIndices = new ObjectIntMap<>();
+        spans = new IntArray();
+        dynamics = new Array<>();
+        setRadius(DEFAULT_ACTIVE_RADIUS, DEFAULT_SLEEP_RADIUS);
+    }
+
+    /**
+     * Sets the distances from the player at which regions wake up and go to sleep.
+     *
+     * @param active The distance (in tiles) at which a region wakes up
+     * @param sleep  The distance (in tiles) at which a region goes to sleep (at least active)
+     */
+    public void setRadius(float active, float sleep) {
+        activeRadius = active * TILE_SIZE;
+        sleepRadius = Math.max(active, sleep) * TILE_SIZE;
+    }
+
+    /**
+     * Adds every body of the world to the manager.
+     *
+     * Static bodies are assigned to the regions their fixtures overlap.  Kinematic
+     * and dynamic bodies are managed as moving bodies, except for the given body
+     * (the player), which always stays active.
+     *
+     * @param world  The world to manage
+     * @param player The body to leave alone (may be null)
+     */
+    public void addBodies(World world, Body player) {
+        Array<Body> bodies = new Array<>();
+        world.getBodies(bodies);
+        for (Body body : bodies) {
+            if (body == player) {
+                continue;
+            }
+            if (body.getType() == BodyDef.BodyType.StaticBody) {
+                addStatic(body);
+            } else {
+                dynamics.add(body);
+            }
+        }
+    }
+
+    /**
+     * Adds a static body, assigning it to every region its fixtures overlap
+     *
+     * @param body The body to add
+     */
+    public void addStatic(Body body) {
+        float minX = body.getPosition().x;
+        float minY = body.getPosition().y;
+        float maxX = minX;
+        float maxY = minY;
+        for (Fixture fixture : body.getFixtureList()) {
+            Shape shape = fixture.getShape();
+            if (shape instanceof PolygonShape) {
+                PolygonShape poly = (PolygonShape) shape;
+                for (int i = 0; i < poly.getVertexCount(); i++) {
+                    poly.getVertex(i, vertex);
+                    body.getTransform().mul(vertex);
+                    minX = Math.min(minX, vertex.x);
+                    minY = Math.min(minY, vertex.y);
+                    maxX = Math.max(maxX, vertex.x);
+                    maxY = Math.max(maxY, vertex.y);
+                }
+            } else if (shape instanceof CircleShape) {
+                vertex.set(((CircleShape) shape).getPosition());
+                body.getTransform().mul(vertex);
+                float radius = shape.getRadius();
+                minX = Math.min(minX, vertex.x - radius);
+                minY = Math.min(minY, vertex.y - radius);
+                maxX = Math.max(maxX, vertex.x + radius);
+                maxY = Math.max(maxY, vertex.y + radius);
+            }
+        }
+
+        int index = statics.size;
+        statics.add(body);
+        staticIndices.put(body, index);
+        int rx0 = regionX(minX);
+        int ry0 = regionY(minY);
+        int rx1 = regionX(maxX);
+        int ry1 = regionY(maxY);
+        spans.add(rx0, ry0, rx1, ry1);
+        for (int ry = ry0; ry <= ry1; ry++) {
+            for (int rx = rx0; rx <= rx1; rx++) {
+                members[ry * regionsX + rx].add(index);
+            }
+        }
+    }
+
+    /**
+     * Adds a moving body, which is parked whenever its region is asleep
+     *
+     * @param body The body to add
+     */
+    public void addDynamic(Body body) {
+        dynamics.add(body);
+    }
+
+    /**
+     * Stops managing a body, which must be called before the body is destroyed
+     *
+     * @param body The body to remove
+     */
+    public void removeBody(Body body) {
+        if (body.getType() != BodyDef.BodyType.StaticBody) {
+            dynamics.removeValue(body, true);
+            return;
+        }
+        // Keep the indices of the other statics; the slot is skipped from now on
+        int index = staticIndices.remove(body, -1);
+        if (index >= 0) {
+            statics.set(index, null);
+        }
+    }
+
+    private int regionX(float x) {
+        return Math.max(0, Math.min(regionsX - 1, (int) Math.floor(x / (REGION_SIZE * TILE_SIZE))));
+    }
+
+    private int regionY(float y) {
+        return Math.max(0, Math.min(regionsY - 1, (int) Math.floor(y / (REGION_SIZE * TILE_SIZE))));
+    }
+
+    /**
+     * Returns the distance from a point to a region (0 if the point is inside)
+     */
+    private float distance(float x, float y, int rx, int ry) {
+        float size = REGION_SIZE * TILE_SIZE;
+        float dx = Math.max(0, Math.max(rx * size - x, x - (rx + 1) * size));
+        float dy = Math.max(0, Math.max(ry * size - y, y - (ry + 1) * size));
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Wakes up and puts to sleep the regions around the player.
+     *
+     * This must be called outside of a world step.
+     *
+     * @param position The position of the player (in Box2D units)
+     */
+    public void update(Vector2 position) {
+        for (int ry = 0; ry < regionsY; ry++) {
+            for (int rx = 0; rx < regionsX; rx++) {
+                int index = ry * regionsX + rx;
+                float d = distance(position.x, position.y, rx, ry);
+                if (!awake[index] && d <= activeRadius) {
+                    awake[index] = true;
+                    refresh(index);
+                } else if (awake[index] && d > sleepRadius) {
+                    awake[index] = false;
+                    refresh(index);
+                }
+            }
+        }
+        for (Body body : dynamics) {
+            boolean active = awake[regionY(body.getPosition().y) * regionsX + regionX(body.getPosition().x)];
+            if (body.isActive() != active) {
+                body.setActive(active);
+            }
+        }
+    }
+
+    /**
+     * Updates the static bodies of a region that just changed state
+     */
+    private void refresh(int region) {
+        IntArray list = members[region];
+        for (int i = 0; i < list.size; i++) {
+            int index = list.get(i);
+            boolean active = awake[region] || isSpanAwake(index);
+            Body body = statics.get(index);
+            if (body != null && body.isActive() != active) {
+                body.setActive(active);
+            }
+        }
+    }
+
+    /**
+     * Returns true if any region overlapped by a static body is awake
+     */
+    private boolean isSpanAwake(int index) {
+        int k = 4 * index;
+        for (int ry = spans.get(k + 1); ry <= spans.get(k + 3); ry++) {
+            for (int rx = spans.get(k); rx <= spans.get(k + 2); rx++) {
+                if (awake[ry * regionsX + rx]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Wakes up every region and every managed body.
+     *
+     * This must be called before the manager is dropped, so that no body is left
+     * asleep with nobody to wake it up.
+     */
+    public void wakeAll() {
+        for (int i = 0; i < awake.length; i++) {
+            awake[i] = true;
+        }
+        for (Body body : statics) {
+            if (body != null) {
+                body.setActive(true);
+            }
+        }
+        for (Body body : dynamics) {
+            body.setActive(true);
+        }
+    }
+
+    /**
+     * Returns true if the region containing the given point is awake
+     *
+     * @param position The point to check (in Box2D units)
+     * @return true if the region containing the point is awake
+     */
+    public boolean isAwake(Vector2 position) {
+        return awake[regionY(position.y) * regionsX + regionX(position.x)];
+    }
+}
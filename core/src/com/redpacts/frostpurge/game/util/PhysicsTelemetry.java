@@ -0,0 +1,201 @@
+package com.redpacts.frostpurge.game.util;
+
+import com.badlogic.gdx.files.FileHandle;
+
+/**
+ * Timings and counters of the most recent physics steps.
+ *
+ * Every step records how long the world step took, how much of it was spent in the
+ * contact listener callbacks, how long the contact events and the object update loop
+ * took afterwards, and the number of bodies, contacts and broadphase proxies of the
+ * world.  The samples are kept in a fixed-size ring buffer of primitive arrays, so
+ * recording never allocates and only the last CAPACITY steps are remembered.
+ *
+ * Samples are indexed from 0 (the oldest kept) to size() - 1 (the latest).  Times
+ * are in nanoseconds.
+ */
+public class PhysicsTelemetry {
+    /** Number of steps remembered (ten seconds at 60 steps per second) */
+    public static final int CAPACITY = 600;
+
+    /** Time of each world step */
+    private final long[] stepTimes = new long[CAPACITY];
+    /** Time spent in the contact listener callbacks during each step */
+    private final long[] callbackTimes = new long[CAPACITY];
+    /** Time spent handling the contact events after each step */
+    private final long[] eventTimes = new long[CAPACITY];
+    /** Time of the object update loop after each step */
+    private final long[] objectTimes = new long[CAPACITY];
+    /** Number of bodies at each step */
+    private final int[] bodies = new int[CAPACITY];
+    /** Number of contacts at each step */
+    private final int[] contacts = new int[CAPACITY];
+    /** Number of broadphase proxies at each step */
+    private final int[] proxies = new int[CAPACITY];
+
+    /** Position of the next sample */
+    private int next;
+    /** Number of samples kept */
+    private int size;
+    /** Total number of steps recorded */
+    private long steps;
+
+    /**
+     * Records a step
+     *
+     * @param step     The time of the world step
+     * @param callback The time spent in the contact callbacks during the step
+     * @param events   The time spent handling the contact events
+     * @param objects  The time of the object update loop
+     * @param bodies   The number of bodies
+     * @param contacts The number of contacts
+     * @param proxies  The number of broadphase proxies
+     */
+    public void record(long step, long callback, long events, long objects, int bodies, int contacts, int proxies) {
+        stepTimes[next] = step;
+        callbackTimes[next] = callback;
+        eventTimes[next] = events;
+        objectTimes[next] = objects;
+        this.bodies[next] = bodies;
+        this.contacts[next] = contacts;
+        this.proxies[next] = proxies;
+        next = (next + 1) % CAPACITY;
+        size = Math.min(size + 1, CAPACITY);
+        steps++;
+    }
+
+    /**
+     * Forgets every sample
+     */
+    public void clear() {
+        next = 0;
+        size = 0;
+        steps = 0;
+    }
+
+    /**
+     * Returns the number of samples kept
+     *
+     * @return the number of samples kept
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the buffer position of the k-th sample
+     */
+    private int slot(int k) {
+        if (k < 0 || k >= size) {
+            throw new IndexOutOfBoundsException("Sample " + k + " of " + size);
+        }
+        return (next - size + k + CAPACITY) % CAPACITY;
+    }
+
+    /** Returns the time of the k-th world step */
+    public long getStepTime(int k) {
+        return stepTimes[slot(k)];
+    }
+
+    /** Returns the time spent in contact callbacks during the k-th step */
+    public long getCallbackTime(int k) {
+        return callbackTimes[slot(k)];
+    }
+
+    /** Returns the time spent handling the contact events of the k-th step */
+    public long getEventTime(int k) {
+        return eventTimes[slot(k)];
+    }
+
+    /** Returns the time of the object update loop of the k-th step */
+    public long getObjectTime(int k) {
+        return objectTimes[slot(k)];
+    }
+
+    /** Returns the number of bodies at the k-th step */
+    public int getBodyCount(int k) {
+        return bodies[slot(k)];
+    }
+
+    /** Returns the number of contacts at the k-th step */
+    public int getContactCount(int k) {
+        return contacts[slot(k)];
+    }
+
+    /** Returns the number of broadphase proxies at the k-th step */
+    public int getProxyCount(int k) {
+        return proxies[slot(k)];
+    }
+
+    /**
+     * Returns the index of the sample with the slowest world step (-1 if empty)
+     *
+     * @return the index of the sample with the slowest world step
+     */
+    public int getWorstStep() {
+        int worst = -1;
+        long time = -1;
+        for (int k = 0; k < size; k++) {
+            long t = stepTimes[slot(k)];
+            if (t > time) {
+                time = t;
+                worst = k;
+            }
+        }
+        return worst;
+    }
+
+    /**
+     * Returns the average time of the world steps kept (0 if empty)
+     *
+     * @return the average time of the world steps kept
+     */
+    public long getAverageStepTime() {
+        if (size == 0) {
+            return 0;
+        }
+        long total = 0;
+        for (int k = 0; k < size; k++) {
+            total += stepTimes[slot(k)];
+        }
+        return total / size;
+    }
+
+    /**
+     * Returns a one-line summary of the latest step and the worst one kept
+     *
+     * @return a one-line summary of the latest step and the worst one kept
+     */
+    public String summary() {
+        if (size == 0) {
+            return "physics: no steps";
+        }
+        int last = size - 1;
+        int worst = getWorstStep();
+        return "physics: " + getStepTime(last) / 1000 + " us (avg " + getAverageStepTime() / 1000 +
+                ", max " + getStepTime(worst) / 1000 + ")  bodies: " + getBodyCount(last) +
+                "  contacts: " + getContactCount(last) + "  proxies: " + getProxyCount(last);
+    }
+
+    /**
+     * Writes the samples kept, oldest first, as comma separated values
+     *
+     * @param file The file to write (overwritten)
+     */
+    public void writeCsv(FileHandle file) {
+        StringBuilder csv = new StringBuilder(64 * (size + 1));
+        csv.append("step,step_ns,callback_ns,event_ns,object_ns,bodies,contacts,proxies\n");
+        for (int k = 0; k < size; k++) {
+            int i = slot(k);
+            csv.append(steps - size + k).append(',')
+                    .append(stepTimes[i]).append(',')
+                    .append(callbackTimes[i]).append(',')
+                    .append(eventTimes[i]).append(',')
+                    .append(objectTimes[i]).append(',')
+                    .append(bodies[i]).append(',')
+                    .append(contacts[i]).append(',')
+                    .append(proxies[i]).append('\n');
+        }
+        file.writeString(csv.toString(), false);
+    }
+}
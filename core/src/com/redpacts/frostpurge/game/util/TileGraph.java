@@ -7,21 +7,31 @@ import com.badlogic.gdx.ai.pfa.indexed.IndexedAStarPathFinder;
 import com.badlogic.gdx.ai.pfa.indexed.IndexedGraph;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ObjectMap;
+import com.redpacts.frostpurge.game.models.LevelModel;
 import com.redpacts.frostpurge.game.models.TileModel;
 
-public class TileGraph implements IndexedGraph<TileModel> {
+public class TileGraph implements IndexedGraph<TileModel>, TilePathfinder {
+    /** The connections of a tile without any */
+    private static final Array<Connection<TileModel>> NO_CONNECTIONS = new Array<>(0);
+
     TileHeuristic tileHeuristic = new TileHeuristic();
     Array<TileModel> tiles = new Array<>();
     Array<TilePath> paths = new Array<>();
     ObjectMap<TileModel, Array<Connection<TileModel>>> pathsMap = new ObjectMap<>();
 
     private int lastTileIndex = 0;
+    /** The pathfinder of this graph, created on the first search after the tiles are added */
+    private IndexedAStarPathFinder<TileModel> pathFinder;
+    /** The path returned by findPath(start, end), reused by every search */
+    private final GraphPath<TileModel> sharedPath = new DefaultGraphPath<>();
 
     public void addTile(TileModel tileModel) {
         tileModel.setIndex(lastTileIndex);
         lastTileIndex++;
 
         tiles.add(tileModel);
+        // The node records of the pathfinder are sized to the tile count
+        pathFinder = null;
     }
 
     public void connectTiles(TileModel fromTile, TileModel toTile){
@@ -34,14 +44,112 @@ public class TileGraph implements IndexedGraph<TileModel> {
         pathsMap.get(fromTile).add(path);
     }
 
+    /**
+     * Returns the shortest path between two tiles (empty if there is none)
+     *
+     * The path is shared by every search on this graph, so it is only valid until
+     * the next call.  Use findPath(start, end, out) to keep the result.
+     *
+     * @param startTile The tile to start from
+     * @param endTile   The tile to reach
+     * @return the shortest path between the two tiles
+     */
     public GraphPath<TileModel> findPath(TileModel startTile, TileModel endTile) {
-        GraphPath<TileModel> tilePath = new DefaultGraphPath<>();
-
-        new IndexedAStarPathFinder<>(this).searchNodePath(startTile, endTile, tileHeuristic, tilePath);
+        findPath(startTile, endTile, sharedPath);
 //        for(TileModel tile : tilePath) {
 //            System.out.println(tile.getCenter().toString());
 //        }
-        return tilePath;
+        return sharedPath;
+    }
+
+    /**
+     * Computes the shortest path between two tiles into the given path
+     *
+     * The search reuses the node records of the graph's pathfinder, which are
+     * stamped with the id of the search instead of being cleared, so it does not
+     * allocate once the pathfinder exists.
+     *
+     * @param startTile The tile to start from
+     * @param endTile   The tile to reach
+     * @param out       The path to fill (cleared first, left empty if there is no path)
+     * @return true if a path was found
+     */
+    @Override
+    public boolean findPath(TileModel startTile, TileModel endTile, GraphPath<TileModel> out) {
+        out.clear();
+        if (startTile == null || endTile == null) {
+            return false;
+        }
+        if (pathFinder == null) {
+            pathFinder = new IndexedAStarPathFinder<>(this);
+        }
+        return pathFinder.searchNodePath(startTile, endTile, tileHeuristic, out);
+    }
+
+    /**
+     * Builds the graph of the tiles an enemy can walk on, with four-way moves
+     *
+     * Swamps and destructibles can be walked over, on their base tile as well as on
+     * themselves; obstacles cannot.
+     *
+     * @param level The level to build the graph of
+     * @return the graph of the walkable tiles of the level
+     */
+    public static TileGraph buildGrounded(LevelModel level) {
+        TileGraph graph = new TileGraph();
+        for (int i = 0; i < level.getWidth(); i++) {
+            for (int j = 0; j < level.getHeight(); j++) {
+                TileModel currentTile;
+
+                if (level.getExtraLayer()[j][i] == null) {
+                    graph.addTile(level.getBaseLayer()[j][i]);
+                    currentTile = level.getBaseLayer()[j][i];
+                }
+
+                else if (level.getExtraLayer()[j][i].getType() == TileModel.TileType.SWAMP
+                        || level.getExtraLayer()[j][i].getType() == TileModel.TileType.DESTRUCTIBLE) {
+                    graph.addTile(level.getBaseLayer()[j][i]);
+                    graph.addTile(level.getExtraLayer()[j][i]);
+
+                    currentTile = level.getBaseLayer()[j][i];
+                }
+
+                else if (level.getExtraLayer()[j][i].getType() != TileModel.TileType.OBSTACLE) {
+                    graph.addTile(level.getExtraLayer()[j][i]);
+                    currentTile = level.getExtraLayer()[j][i];
+                }
+
+                else {
+                    continue;
+                }
+
+                for (int x = i - 1; x <= i + 1; x++) {
+                    for (int y = j - 1; y <= j + 1; y++) {
+                        if (Math.abs((x - i) + (y - j)) == 1 && level.inBounds(x, y)) {
+                            if (level.getExtraLayer()[y][x] == null) {
+                                graph.connectTiles(currentTile, level.getBaseLayer()[y][x]);
+                            }
+
+                            else if (level.getExtraLayer()[y][x].getType() == TileModel.TileType.SWAMP
+                            || level.getExtraLayer()[y][x].getType() == TileModel.TileType.DESTRUCTIBLE) {
+                                graph.connectTiles(currentTile, level.getBaseLayer()[y][x]);
+                                graph.connectTiles(currentTile, level.getExtraLayer()[y][x]);
+
+                                if (level.getExtraLayer()[j][i] != null) {
+                                    graph.connectTiles(level.getExtraLayer()[j][i], level.getBaseLayer()[y][x]);
+                                    graph.connectTiles(level.getExtraLayer()[j][i], level.getExtraLayer()[y][x]);
+                                }
+                            }
+
+                            else if (level.getExtraLayer()[y][x].getType() != TileModel.TileType.OBSTACLE) {
+                                graph.connectTiles(currentTile, level.getExtraLayer()[y][x]);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return graph;
     }
 
     @Override
@@ -56,9 +164,7 @@ public class TileGraph implements IndexedGraph<TileModel> {
 
     @Override
     public Array<Connection<TileModel>> getConnections(TileModel tileModel) {
-        if (pathsMap.containsKey(tileModel)) {
-            return pathsMap.get(tileModel);
-        }
-        return new Array<>(0);
+        Array<Connection<TileModel>> connections = pathsMap.get(tileModel);
+        return connections != null ? connections : NO_CONNECTIONS;
     }
 }
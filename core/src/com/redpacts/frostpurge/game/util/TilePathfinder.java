@@ -0,0 +1,23 @@
+package com.redpacts.frostpurge.game.util;
+
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.redpacts.frostpurge.game.models.TileModel;
+
+/**
+ * Finds the tiles an enemy walks through to reach another tile.
+ *
+ * A path starts with the start tile.  It may stop short of the end tile, when the
+ * pathfinder only plans the first part of a long route; the caller asks again from
+ * the last tile of the path once it gets there.
+ */
+public interface TilePathfinder {
+    /**
+     * Computes a path between two tiles into the given path
+     *
+     * @param startTile The tile to start from
+     * @param endTile   The tile to reach
+     * @param out       The path to fill (cleared first, left empty if there is no path)
+     * @return true if a path was found
+     */
+    boolean findPath(TileModel startTile, TileModel endTile, GraphPath<TileModel> out);
+}
@@ -0,0 +1,163 @@
+package com.redpacts.frostpurge.game.util;
+
+import com.badlogic.gdx.utils.Array;
+import com.redpacts.frostpurge.game.models.TileModel;
+
+/**
+ * Uniform grid over the tile layers of a level, used for proximity queries.
+ *
+ * Every occupied tile is stored in the cell containing it, where a cell covers
+ * CELL_SIZE x CELL_SIZE tiles.  Queries only visit the cells overlapping the
+ * query area, so they cost in proportion to the area asked for and not to the
+ * size of the level.  Results are written to an array given by the caller, and
+ * no query allocates memory.
+ */
+public class TileSpatialIndex {
+    /** Number of tiles along each side of a cell */
+    public static final int CELL_SIZE = 8;
+
+    /** The dimensions of a single tile */
+    private final int tileWidth;
+    /** Number of cells along the x-axis */
+    private final int cellsX;
+    /** Number of cells along the y-axis */
+    private final int cellsY;
+    /** Tiles of each cell, indexed by row * cellsX + col */
+    private final Array<TileModel>[] cells;
+
+    /**
+     * Creates a new empty index for a level of the given size
+     *
+     * @param width     The width of the level in tiles
+     * @param height    The height of the level in tiles
+     * @param tileWidth The dimensions of a single tile
+     */
+    @SuppressWarnings("unchecked")
+    public TileSpatialIndex(int width, int height, int tileWidth) {
+        this.tileWidth = tileWidth;
+        cellsX = Math.max(1, (width + CELL_SIZE - 1) / CELL_SIZE);
+        cellsY = Math.max(1, (height + CELL_SIZE - 1) / CELL_SIZE);
+        cells = new Array[cellsX * cellsY];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = new Array<>(false, 16);
+        }
+    }
+
+    /**
+     * Returns the cell containing the given tile
+     */
+    private Array<TileModel> cellOf(TileModel tile) {
+        int cx = clampX((int) Math.floor(tile.getPosition().x / tileWidth) / CELL_SIZE);
+        int cy = clampY((int) Math.floor(tile.getPosition().y / tileWidth) / CELL_SIZE);
+        return cells[cy * cellsX + cx];
+    }
+
+    private int clampX(int cx) {
+        return Math.max(0, Math.min(cellsX - 1, cx));
+    }
+
+    private int clampY(int cy) {
+        return Math.max(0, Math.min(cellsY - 1, cy));
+    }
+
+    /**
+     * Adds a tile to the index
+     *
+     * @param tile The tile to add (ignored if null)
+     */
+    public void add(TileModel tile) {
+        if (tile != null) {
+            cellOf(tile).add(tile);
+        }
+    }
+
+    /**
+     * Removes a tile from the index
+     *
+     * @param tile The tile to remove (ignored if null)
+     */
+    public void remove(TileModel tile) {
+        if (tile != null) {
+            cellOf(tile).removeValue(tile, true);
+        }
+    }
+
+    /**
+     * Removes every tile from the index
+     */
+    public void clear() {
+        for (Array<TileModel> cell : cells) {
+            cell.clear();
+        }
+    }
+
+    /**
+     * Collects the tiles overlapping the given rectangle (in pixels).
+     *
+     * A tile overlaps the rectangle if its 64x64 square does.  The array is
+     * cleared first.
+     *
+     * @param minX The left edge of the rectangle
+     * @param minY The bottom edge of the rectangle
+     * @param maxX The right edge of the rectangle
+     * @param maxY The top edge of the rectangle
+     * @param out  The array to store the result in
+     * @return the array out, for chaining
+     */
+    public Array<TileModel> queryRect(float minX, float minY, float maxX, float maxY, Array<TileModel> out) {
+        out.clear();
+        int cx0 = clampX((int) Math.floor(minX / tileWidth) / CELL_SIZE);
+        int cy0 = clampY((int) Math.floor(minY / tileWidth) / CELL_SIZE);
+        int cx1 = clampX((int) Math.floor(maxX / tileWidth) / CELL_SIZE);
+        int cy1 = clampY((int) Math.floor(maxY / tileWidth) / CELL_SIZE);
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                Array<TileModel> cell = cells[cy * cellsX + cx];
+                for (int i = 0; i < cell.size; i++) {
+                    TileModel tile = cell.get(i);
+                    float x = tile.getPosition().x;
+                    float y = tile.getPosition().y;
+                    if (x + tileWidth > minX && x < maxX && y + tileWidth > minY && y < maxY) {
+                        out.add(tile);
+                    }
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Collects the tiles whose center is within the given distance of a point (in pixels).
+     *
+     * The array is cleared first.
+     *
+     * @param x      The x-coordinate of the point
+     * @param y      The y-coordinate of the point
+     * @param radius The search radius
+     * @param out    The array to store the result in
+     * @return the array out, for chaining
+     */
+    public Array<TileModel> queryRadius(float x, float y, float radius, Array<TileModel> out) {
+        out.clear();
+        float half = tileWidth / 2f;
+        float radius2 = radius * radius;
+        int cx0 = clampX((int) Math.floor((x - radius - half) / tileWidth) / CELL_SIZE);
+        int cy0 = clampY((int) Math.floor((y - radius - half) / tileWidth) / CELL_SIZE);
+        int cx1 = clampX((int) Math.floor((x + radius) / tileWidth) / CELL_SIZE);
+        int cy1 = clampY((int) Math.floor((y + radius) / tileWidth) / CELL_SIZE);
+        for (int cy = cy0; cy <= cy1; cy++) {
+            for (int cx = cx0; cx <= cx1; cx++) {
+                Array<TileModel> cell = cells[cy * cellsX + cx];
+                for (int i = 0; i < cell.size; i++) {
+                    TileModel tile = cell.get(i);
+                    float dx = tile.getPosition().x + half - x;
+                    float dy = tile.getPosition().y + half - y;
+                    if (dx * dx + dy * dy <= radius2) {
+                        out.add(tile);
+                    }
+                }
+            }
+        }
+        return out;
+    }
+}
@@ -3,6 +3,7 @@ package com.redpacts.frostpurge.game.views;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.*;
 import com.badlogic.gdx.graphics.g2d.*;
+import com.badlogic.gdx.graphics.glutils.FrameBuffer;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.math.Affine2;
 import com.badlogic.gdx.math.Vector2;
@@ -46,6 +47,15 @@ public class GameCanvas {
 
     private Affine2 global;
     private Texture coneTexture;
+    /** Buffered renderer for flat colored shapes (like shadows) */
+    private TriangleFanRenderer fans;
+
+    /** Rendering statistics of this canvas */
+    private RenderStats stats;
+    /** Offscreen copy of a frozen frame (created on first use) */
+    private FrameBuffer snapshot;
+    /** Whether the snapshot holds a valid frame */
+    private boolean hasSnapshot;
     /**
      * Creates a new GameCanvas determined by the application configuration.
      *
@@ -75,6 +85,44 @@ public class GameCanvas {
         map.setColor(Color.RED);
         map.fillRectangle(0, 0, BLANK_SIZE, BLANK_SIZE);
         coneTexture = new Texture(map);
+        fans = new TriangleFanRenderer(spriteBatch, coneTexture);
+
+        stats = new RenderStats();
+    }
+
+    /**
+     * Returns the rendering statistics of this canvas
+     *
+     * @return the rendering statistics of this canvas
+     */
+    public RenderStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Starts collecting the rendering statistics of a new frame.
+     *
+     * This should be called once per frame, before anything is drawn.
+     */
+    public void beginFrame() {
+        stats.beginFrame();
+    }
+
+    /**
+     * Finishes collecting the rendering statistics of the current frame.
+     *
+     * This should be called once per frame, after everything is drawn.
+     */
+    public void endFrame() {
+        stats.endFrame();
+    }
+
+    /**
+     * Ends the current sprite batch pass, recording how often it flushed
+     */
+    private void endBatch() {
+        spriteBatch.end();
+        stats.addBatchPass(spriteBatch.renderCalls);
     }
     /**
      * Center the camera around the player
@@ -96,6 +144,10 @@ public class GameCanvas {
             Gdx.app.error("GameCanvas", "Cannot dispose while drawing active", new IllegalStateException());
             return;
         }
+        if (snapshot != null) {
+            snapshot.dispose();
+            snapshot = null;
+        }
         spriteBatch.dispose();
         spriteBatch = null;
         local  = null;
@@ -239,6 +291,83 @@ public class GameCanvas {
     public void resize() {
         // Resizing screws up the spriteBatch projection matrix
         spriteBatch.getProjectionMatrix().setToOrtho2D(0, 0, getWidth(), getHeight());
+        // The snapshot no longer matches the window
+        clearSnapshot();
+    }
+
+    /**
+     * Returns true if the snapshot holds a frame that can be drawn
+     *
+     * @return true if the snapshot holds a frame that can be drawn
+     */
+    public boolean hasSnapshot() {
+        return hasSnapshot;
+    }
+
+    /**
+     * Marks the snapshot as out of date, so that it is captured again before use
+     */
+    public void clearSnapshot() {
+        hasSnapshot = false;
+    }
+
+    /**
+     * Starts capturing a snapshot.
+     *
+     * Everything drawn until endSnapshot() goes to an offscreen buffer the size
+     * of the window instead of the screen.  This is used to freeze the scene
+     * behind the pause menu, so that it is not redrawn every frame.  This must
+     * be called outside of a begin-end pair.
+     */
+    public void beginSnapshot() {
+        if (active != DrawPass.INACTIVE) {
+            Gdx.app.error("GameCanvas", "Cannot capture a snapshot while drawing active", new IllegalStateException());
+            return;
+        }
+        if (snapshot != null && (snapshot.getWidth() != getWidth() || snapshot.getHeight() != getHeight())) {
+            snapshot.dispose();
+            snapshot = null;
+        }
+        if (snapshot == null) {
+            snapshot = new FrameBuffer(Pixmap.Format.RGBA8888, getWidth(), getHeight(), false);
+        }
+        snapshot.begin();
+    }
+
+    /**
+     * Finishes capturing a snapshot, returning drawing to the screen.
+     */
+    public void endSnapshot() {
+        if (snapshot == null) {
+            return;
+        }
+        snapshot.end();
+        hasSnapshot = true;
+    }
+
+    /**
+     * Draws the last captured snapshot over the whole screen.
+     *
+     * The snapshot replaces the contents of the screen, so it is drawn without
+     * blending.  This must be called outside of a begin-end pair.
+     *
+     * @param camera The HUD camera
+     */
+    public void drawSnapshot(OrthographicCamera camera) {
+        if (!hasSnapshot) {
+            return;
+        }
+        Texture texture = snapshot.getColorBufferTexture();
+        camera.update();
+        spriteBatch.setProjectionMatrix(camera.combined);
+        spriteBatch.disableBlending();
+        spriteBatch.begin();
+        spriteBatch.setColor(Color.WHITE);
+        stats.addSprite();
+        // Frame buffers are stored upside down
+        spriteBatch.draw(texture, 0, 0, getWidth(), getHeight(), 0, 0, texture.getWidth(), texture.getHeight(), false, true);
+        endBatch();
+        spriteBatch.enableBlending();
     }
 
     /**
@@ -306,7 +435,7 @@ public class GameCanvas {
      * Ends a drawing sequence, flushing textures to the graphics card.
      */
     public void end() {
-        spriteBatch.end();
+        endBatch();
         active = DrawPass.INACTIVE;
     }
 
@@ -332,6 +461,7 @@ public class GameCanvas {
             h = image.getHeight();
         }
         spriteBatch.setColor(Color.WHITE);
+        stats.addSprite();
         spriteBatch.draw(image, x, y, w, h);
     }public void drawBackgroundHUD(Texture image, float x, float y, boolean fill,OrthographicCamera camera) {
         spriteBatch.begin();
@@ -346,8 +476,9 @@ public class GameCanvas {
         camera.update();
         spriteBatch.setProjectionMatrix(camera.combined);
         spriteBatch.setColor(Color.WHITE);
+        stats.addSprite();
         spriteBatch.draw(image, x, y, w, h);
-        spriteBatch.end();
+        endBatch();
     }
     public void drawBackgroundAnimationHUD(TextureRegion image, float x, float y,OrthographicCamera camera) {
         spriteBatch.begin();
@@ -357,8 +488,9 @@ public class GameCanvas {
         camera.update();
         spriteBatch.setProjectionMatrix(camera.combined);
         spriteBatch.setColor(Color.WHITE);
+        stats.addSprite();
         spriteBatch.draw(image, x, y, w, h);
-        spriteBatch.end();
+        endBatch();
     }
     public void drawBackgroundLOAD(Texture image, float x, float y, boolean fill) {
         spriteBatch.begin();
@@ -371,9 +503,10 @@ public class GameCanvas {
             h = image.getHeight();
         }
         spriteBatch.setColor(Color.WHITE);
+        stats.addSprite();
         spriteBatch.draw(image, x, y, w, h);
         System.out.println("drawn");
-        spriteBatch.end();
+        endBatch();
     }
 
     public void drawBar(ProgressBar bar, float width, float height, float x, float y) {
@@ -411,6 +544,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(Color.WHITE);
+        stats.addSprite();
         spriteBatch.draw(image, x,  y);
     }
 
@@ -422,6 +556,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(Color.WHITE);
+        stats.addSprite();
         spriteBatch.draw(image, x,  y, width, height);
     }public void drawUI(Texture image, float x, float y, float width, float height, OrthographicCamera camera) {
         spriteBatch.begin();
@@ -434,8 +569,9 @@ public class GameCanvas {
         spriteBatch.setProjectionMatrix(camera.combined);
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(Color.WHITE);
+        stats.addSprite();
         spriteBatch.draw(image, x,  y, width, height);
-        spriteBatch.end();
+        endBatch();
     }
 
     public void drawCentered(Texture image, float x, float y, float width, float height){
@@ -446,6 +582,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(Color.WHITE);
+        stats.addSprite();
         spriteBatch.draw(image, x-width/2,  y-height/2, width, height);
     }
 
@@ -512,6 +649,7 @@ public class GameCanvas {
         if (region == null){
             System.out.println("NULL");
         }
+        stats.addSprite();
         spriteBatch.draw(region, x,  y);
     }
 
@@ -523,6 +661,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(Color.WHITE);
+        stats.addSprite();
         spriteBatch.draw(region, x,  y, width, height);
     }
     public void drawCentered(TextureRegion region, float x, float y, float width, float height) {
@@ -533,6 +672,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(Color.WHITE);
+        stats.addSprite();
         spriteBatch.draw(region, x-width/2,  y-height/2, width, height);
     }
 
@@ -576,6 +716,7 @@ public class GameCanvas {
         if (flip){
             region.flip(true, false);
         }
+        stats.addSprite();
         spriteBatch.draw(region,region.getRegionWidth(),region.getRegionHeight(),local);
         if (flip){
             region.flip(true, false);
@@ -594,6 +735,7 @@ public class GameCanvas {
         if (flip){
             region.flip(true, false);
         }
+        stats.addSprite();
         spriteBatch.draw(region,region.getRegionWidth(),region.getRegionHeight(),local);
         if (flip){
             region.flip(true, false);
@@ -669,7 +811,7 @@ public class GameCanvas {
         font.draw(spriteBatch, layout, x, y);
 
         active = DrawPass.STANDARD;
-        spriteBatch.end();
+        endBatch();
     }public void drawTextLOAD(String text, BitmapFont font, float x, float y) {
         spriteBatch.begin();
         active = DrawPass.STANDARD;
@@ -686,7 +828,7 @@ public class GameCanvas {
         font.draw(spriteBatch, layout, x, y);
 
         active = DrawPass.STANDARD;
-        spriteBatch.end();
+        endBatch();
     }
 
     /**
@@ -722,7 +864,7 @@ public class GameCanvas {
         font.setColor(Color.WHITE);
         font.draw(spriteBatch, layout, x, y+offset);
         active = DrawPass.STANDARD;
-        spriteBatch.end();
+        endBatch();
     }
 
     /**Draw the UI for the game which is different because it needs to follow the player.
@@ -752,7 +894,7 @@ public class GameCanvas {
         holder.setRegion(image);
         draw(holder,tint,0,0,x,height- y,angle,sx,sy, false);
         active = DrawPass.STANDARD;
-        spriteBatch.end();
+        endBatch();
     }
 
     /**Draw the UI for the game which is different because it needs to follow the player.
@@ -782,7 +924,7 @@ public class GameCanvas {
         holder.setRegion(image);
         draw(holder,tint,0,0,x,height- y,angle,sx,sy, false);
         active = DrawPass.STANDARD;
-        spriteBatch.end();
+        endBatch();
     }
 
     /**
@@ -825,12 +967,80 @@ public class GameCanvas {
         region.setTexture(coneTexture);
         region.setRegion(0, 0, BLANK_SIZE, BLANK_SIZE);
         spriteBatch.setColor(tint);
+        stats.addSprite();
         spriteBatch.draw(poly, x, y, 0.0f, 0.0f, BLANK_SIZE, BLANK_SIZE, 1, 1, rotate);
         region.setTexture(orig);
         if (orig != null) {
             region.setRegion(rx,ry,rw,rh);
         }
     }
+    /**
+     * Draws a tinted filled circle, as a fan of triangles
+     *
+     * Like the polygon drawing method, this uses the blank cone texture and ignores
+     * the global scaling factor.  Nothing is allocated, so this is safe to call for
+     * every character, every frame.
+     *
+     * @param tint     The color tint
+     * @param x        The x-coordinate of the center
+     * @param y        The y-coordinate of the center
+     * @param radius   The radius of the circle
+     * @param segments The number of triangles in the fan
+     */
+    public void drawCircle(Color tint, float x, float y, float radius, int segments) {
+        if (active == DrawPass.INACTIVE) {
+            Gdx.app.error("GameCanvas", "Cannot draw without active begin()", new IllegalStateException());
+            return;
+        }
+        fans.circle(tint, x, y, radius, segments);
+        stats.addSprite();
+        fans.flush();
+    }
+
+    /**
+     * Draws a tinted filled triangle
+     *
+     * Like the polygon drawing method, this uses the blank cone texture and ignores
+     * the global scaling factor.
+     *
+     * @param tint The color tint
+     * @param x1   The x-coordinate of the first corner
+     * @param y1   The y-coordinate of the first corner
+     * @param x2   The x-coordinate of the second corner
+     * @param y2   The y-coordinate of the second corner
+     * @param x3   The x-coordinate of the third corner
+     * @param y3   The y-coordinate of the third corner
+     */
+    public void drawTriangle(Color tint, float x1, float y1, float x2, float y2, float x3, float y3) {
+        if (active == DrawPass.INACTIVE) {
+            Gdx.app.error("GameCanvas", "Cannot draw without active begin()", new IllegalStateException());
+            return;
+        }
+        fans.triangle(tint, x1, y1, x2, y2, x3, y3);
+        stats.addSprite();
+        fans.flush();
+    }
+
+    /**
+     * Draws the visible chunks of a static tile cache.
+     *
+     * The sprite batch is flushed first so that the cached geometry is layered
+     * correctly with anything already drawn, and restarted afterwards.  The cache
+     * uses the current projection matrix of the sprite batch.
+     *
+     * @param cache The chunk cache to draw
+     * @param range The visible tile range {minCol, minRow, maxCol, maxRow}
+     */
+    public void draw(TileChunkCache cache, int[] range) {
+        if (active != DrawPass.STANDARD) {
+            Gdx.app.error("GameCanvas", "Cannot draw without active begin()", new IllegalStateException());
+            return;
+        }
+        endBatch();
+        cache.draw(spriteBatch.getProjectionMatrix(), range);
+        spriteBatch.begin();
+    }
+
     /**
      * Start the debug drawing sequence.
      *
@@ -876,6 +1086,7 @@ public class GameCanvas {
         local.translate(x/10,y/10);
         local.rotateRad(angle);
         debugRender.setColor(color);
+        stats.addShape();
 
         if (shape instanceof PolygonShape) {
             float x0, y0, x1, y1;
@@ -930,6 +1141,7 @@ public class GameCanvas {
 
         // Unlike Lab 1, we can shortcut without a master drawing method
         spriteBatch.setColor(tint);
+        stats.addSprite();
         spriteBatch.draw(region, x,  y, width, height);
     }
     /**
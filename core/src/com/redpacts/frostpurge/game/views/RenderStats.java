@@ -0,0 +1,224 @@
+package com.redpacts.frostpurge.game.views;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
+
+/**
+ * Per-frame rendering statistics of a GameCanvas.
+ *
+ * The canvas reports every sprite it submits, every shape it outlines and the
+ * number of flushes of each sprite batch pass.  The remaining counters (draw calls,
+ * texture bindings, shader switches and vertices) are read from a GLProfiler,
+ * which sees every GL call of the frame, including the ones made outside of the
+ * canvas (e.g. the sprite cache).
+ *
+ * Counters are accumulated between beginFrame() and endFrame().  The getters
+ * return the values of the last completed frame, so they can be drawn in the
+ * middle of the next one.  Profiling hooks into every GL call, so it is only
+ * turned on while the statistics are enabled.
+ */
+public class RenderStats {
+    /** Profiler hooked into the GL context */
+    private final GLProfiler profiler;
+    /** Whether statistics are collected */
+    private boolean enabled;
+
+    // Counters of the frame in progress
+    private int sprites;
+    private int shapes;
+    private int renderCalls;
+    private int batchPasses;
+
+    // Values of the last completed frame
+    private int lastSprites;
+    private int lastShapes;
+    private int lastRenderCalls;
+    private int lastBatchPasses;
+    private int lastDrawCalls;
+    private int lastTextureBindings;
+    private int lastShaderSwitches;
+    private int lastGLCalls;
+    private int lastVertices;
+
+    /**
+     * Creates a new (disabled) statistics collector
+     */
+    public RenderStats() {
+        profiler = new GLProfiler(Gdx.graphics);
+    }
+
+    /**
+     * Returns true if statistics are collected
+     *
+     * @return true if statistics are collected
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns the collection of statistics on or off
+     *
+     * @param value whether statistics should be collected
+     */
+    public void setEnabled(boolean value) {
+        if (value == enabled) {
+            return;
+        }
+        enabled = value;
+        if (enabled) {
+            profiler.enable();
+        } else {
+            profiler.disable();
+        }
+        profiler.reset();
+    }
+
+    /**
+     * Starts a new frame, clearing all counters
+     */
+    public void beginFrame() {
+        sprites = 0;
+        shapes = 0;
+        renderCalls = 0;
+        batchPasses = 0;
+        profiler.reset();
+    }
+
+    /**
+     * Ends the current frame, making its values available to the getters
+     */
+    public void endFrame() {
+        if (!enabled) {
+            return;
+        }
+        lastSprites = sprites;
+        lastShapes = shapes;
+        lastRenderCalls = renderCalls;
+        lastBatchPasses = batchPasses;
+        lastDrawCalls = profiler.getDrawCalls();
+        lastTextureBindings = profiler.getTextureBindings();
+        lastShaderSwitches = profiler.getShaderSwitches();
+        lastGLCalls = profiler.getCalls();
+        lastVertices = (int) profiler.getVertexCount().total;
+    }
+
+    /**
+     * Records a sprite submitted to the sprite batch
+     */
+    public void addSprite() {
+        sprites++;
+    }
+
+    /**
+     * Records a shape outlined by the debug renderer
+     */
+    public void addShape() {
+        shapes++;
+    }
+
+    /**
+     * Records the end of a sprite batch begin-end pass
+     *
+     * @param calls The number of flushes of that pass (the batch renderCalls)
+     */
+    public void addBatchPass(int calls) {
+        batchPasses++;
+        renderCalls += calls;
+    }
+
+    /**
+     * Returns the number of sprites submitted to the sprite batch
+     *
+     * @return the number of sprites submitted to the sprite batch
+     */
+    public int getSprites() {
+        return lastSprites;
+    }
+
+    /**
+     * Returns the number of shapes outlined by the debug renderer
+     *
+     * @return the number of shapes outlined by the debug renderer
+     */
+    public int getShapes() {
+        return lastShapes;
+    }
+
+    /**
+     * Returns the number of sprite batch flushes
+     *
+     * @return the number of sprite batch flushes
+     */
+    public int getRenderCalls() {
+        return lastRenderCalls;
+    }
+
+    /**
+     * Returns the number of sprite batch begin-end passes
+     *
+     * @return the number of sprite batch begin-end passes
+     */
+    public int getBatchPasses() {
+        return lastBatchPasses;
+    }
+
+    /**
+     * Returns the number of GL draw calls
+     *
+     * @return the number of GL draw calls
+     */
+    public int getDrawCalls() {
+        return lastDrawCalls;
+    }
+
+    /**
+     * Returns the number of texture bindings (texture switches)
+     *
+     * @return the number of texture bindings
+     */
+    public int getTextureBindings() {
+        return lastTextureBindings;
+    }
+
+    /**
+     * Returns the number of shader switches
+     *
+     * @return the number of shader switches
+     */
+    public int getShaderSwitches() {
+        return lastShaderSwitches;
+    }
+
+    /**
+     * Returns the total number of GL calls
+     *
+     * @return the total number of GL calls
+     */
+    public int getGLCalls() {
+        return lastGLCalls;
+    }
+
+    /**
+     * Returns the number of vertices drawn
+     *
+     * @return the number of vertices drawn
+     */
+    public int getVertices() {
+        return lastVertices;
+    }
+
+    /**
+     * Returns a short multi-line summary of the last frame
+     *
+     * @return a short multi-line summary of the last frame
+     */
+    public String summary() {
+        return "draw calls: " + lastDrawCalls +
+                "\nrender calls: " + lastRenderCalls + " (" + lastBatchPasses + " passes)" +
+                "\ntexture binds: " + lastTextureBindings +
+                "\nshader switches: " + lastShaderSwitches +
+                "\nsprites: " + lastSprites + "  shapes: " + lastShapes +
+                "\nvertices: " + lastVertices + "  gl calls: " + lastGLCalls;
+    }
+}
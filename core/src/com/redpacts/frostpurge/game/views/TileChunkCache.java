@@ -0,0 +1,133 @@
+package com.redpacts.frostpurge.game.views;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
+import com.badlogic.gdx.math.Matrix4;
+import com.redpacts.frostpurge.game.models.LevelModel;
+import com.redpacts.frostpurge.game.models.TileModel;
+
+/**
+ * Static geometry cache for the two ground layers of a level.
+ *
+ * The base layers never change after the level is loaded, so instead of sending
+ * every tile through the sprite batch each frame, the tiles are baked once into
+ * a SpriteCache, split into square chunks of CHUNK_SIZE tiles.  Drawing the ground
+ * then only costs one cache draw per visible chunk and no vertex upload at all.
+ *
+ * The cache is built the first time it is drawn and not in the constructor, since
+ * levels may be loaded outside of the rendering thread.
+ */
+public class TileChunkCache {
+    /** Number of tiles along each side of a chunk */
+    public static final int CHUNK_SIZE = 16;
+
+    /** The level whose ground layers are cached */
+    private final LevelModel level;
+    /** Number of chunks along the x-axis */
+    private final int chunksX;
+    /** Number of chunks along the y-axis */
+    private final int chunksY;
+
+    /** The baked geometry (null until the first draw) */
+    private SpriteCache cache;
+    /** Cache id of each chunk, indexed by row * chunksX + col */
+    private int[] chunkIds;
+
+    /**
+     * Creates a new (not yet built) chunk cache for the given level
+     *
+     * @param level The level whose ground layers should be cached
+     */
+    public TileChunkCache(LevelModel level) {
+        this.level = level;
+        chunksX = (level.getWidth() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        chunksY = (level.getHeight() + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    /**
+     * Returns the level cached by this object
+     *
+     * @return the level cached by this object
+     */
+    public LevelModel getLevel() {
+        return level;
+    }
+
+    /**
+     * Bakes every chunk of the ground layers into the sprite cache.
+     *
+     * Tiles are added in the same order as they used to be drawn (base, then base2
+     * for each tile) so the layering is unchanged.
+     */
+    private void build() {
+        TileModel[][] base = level.getBaseLayer();
+        TileModel[][] base2 = level.getBase2Layer();
+        cache = new SpriteCache(level.getWidth() * level.getHeight() * 2, false);
+        chunkIds = new int[chunksX * chunksY];
+        for (int cy = 0; cy < chunksY; cy++) {
+            for (int cx = 0; cx < chunksX; cx++) {
+                cache.beginCache();
+                int maxRow = Math.min(level.getHeight(), (cy + 1) * CHUNK_SIZE);
+                int maxCol = Math.min(level.getWidth(), (cx + 1) * CHUNK_SIZE);
+                for (int i = cy * CHUNK_SIZE; i < maxRow; i++) {
+                    for (int j = cx * CHUNK_SIZE; j < maxCol; j++) {
+                        addTile(base[i][j]);
+                        addTile(base2[i][j]);
+                    }
+                }
+                chunkIds[cy * chunksX + cx] = cache.endCache();
+            }
+        }
+    }
+
+    /**
+     * Adds a single tile to the cache currently being built
+     *
+     * @param tile The tile to add (may be null)
+     */
+    private void addTile(TileModel tile) {
+        if (tile != null && tile.getTextureRegion() != null) {
+            cache.add(tile.getTextureRegion(), tile.getPosition().x, tile.getPosition().y);
+        }
+    }
+
+    /**
+     * Draws every chunk that overlaps the given tile range.
+     *
+     * This must be called outside of a sprite batch begin-end pair.
+     *
+     * @param projection The projection matrix of the level camera
+     * @param range      The visible tile range {minCol, minRow, maxCol, maxRow}
+     */
+    public void draw(Matrix4 projection, int[] range) {
+        if (range[2] < range[0] || range[3] < range[1]) {
+            return;
+        }
+        if (cache == null) {
+            build();
+        }
+        cache.setProjectionMatrix(projection);
+        // SpriteCache does not touch the blend state, so match the sprite batch
+        Gdx.gl.glEnable(GL20.GL_BLEND);
+        Gdx.gl.glBlendFunc(GL20.GL_SRC_ALPHA, GL20.GL_ONE_MINUS_SRC_ALPHA);
+        cache.begin();
+        for (int cy = range[1] / CHUNK_SIZE; cy <= range[3] / CHUNK_SIZE; cy++) {
+            for (int cx = range[0] / CHUNK_SIZE; cx <= range[2] / CHUNK_SIZE; cx++) {
+                cache.draw(chunkIds[cy * chunksX + cx]);
+            }
+        }
+        cache.end();
+    }
+
+    /**
+     * Releases the baked geometry.
+     */
+    public void dispose() {
+        if (cache != null) {
+            cache.dispose();
+            cache = null;
+        }
+        chunkIds = null;
+    }
+}
@@ -0,0 +1,143 @@
+package com.redpacts.frostpurge.game.views;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.PolygonSpriteBatch;
+import com.badlogic.gdx.math.MathUtils;
+
+/**
+ * Allocation-free renderer for flat colored triangle fans and triangles.
+ *
+ * Shadows and vision cones used to be drawn one triangle at a time, each one a new
+ * PolygonRegion with its own vertex and index arrays.  This class instead writes the
+ * vertices straight into a pre-sized buffer in the layout of the sprite batch
+ * (x, y, packed color, u, v), together with the triangle indices, and submits the
+ * whole buffer to the batch in a single call.  The buffers are created once, so
+ * drawing does not allocate anything.
+ *
+ * Every vertex samples the center of the given blank texture, so the resulting
+ * color is the tint multiplied by the color of that texture.
+ *
+ * Shapes are buffered until flush() is called (or the buffer is full), so the
+ * caller must flush before drawing anything else that should appear on top.
+ */
+public class TriangleFanRenderer {
+    /** Number of floats per vertex (x, y, color, u, v) */
+    private static final int VERTEX_SIZE = 5;
+    /** Maximum number of vertices buffered before a flush */
+    public static final int MAX_VERTICES = 256;
+
+    /** The batch the shapes are submitted to */
+    private final PolygonSpriteBatch batch;
+    /** The blank texture to draw with */
+    private final Texture texture;
+
+    /** The vertex buffer */
+    private final float[] vertices;
+    /** The triangle index buffer */
+    private final short[] triangles;
+    /** Number of vertices in the buffer */
+    private int vertexCount;
+    /** Number of indices in the buffer */
+    private int triangleCount;
+
+    /**
+     * Creates a new renderer drawing to the given batch
+     *
+     * @param batch   The batch to submit the shapes to
+     * @param texture The blank texture to draw with
+     */
+    public TriangleFanRenderer(PolygonSpriteBatch batch, Texture texture) {
+        this.batch = batch;
+        this.texture = texture;
+        vertices = new float[MAX_VERTICES * VERTEX_SIZE];
+        triangles = new short[(MAX_VERTICES - 2) * 3];
+    }
+
+    /**
+     * Makes room for the given number of vertices and indices, flushing if needed
+     */
+    private void ensureCapacity(int vertexNeed, int indexNeed) {
+        if (vertexCount + vertexNeed > MAX_VERTICES || triangleCount + indexNeed > triangles.length) {
+            flush();
+        }
+    }
+
+    /**
+     * Appends a single vertex to the buffer
+     */
+    private void vertex(float x, float y, float color) {
+        int k = vertexCount * VERTEX_SIZE;
+        vertices[k] = x;
+        vertices[k + 1] = y;
+        vertices[k + 2] = color;
+        vertices[k + 3] = 0.5f;
+        vertices[k + 4] = 0.5f;
+        vertexCount++;
+    }
+
+    /**
+     * Adds a filled circle, as a fan of triangles around its center
+     *
+     * @param tint     The color of the circle
+     * @param x        The x-coordinate of the center
+     * @param y        The y-coordinate of the center
+     * @param radius   The radius of the circle
+     * @param segments The number of triangles in the fan
+     */
+    public void circle(Color tint, float x, float y, float radius, int segments) {
+        segments = Math.max(3, Math.min(segments, MAX_VERTICES - 2));
+        ensureCapacity(segments + 2, segments * 3);
+
+        float color = tint.toFloatBits();
+        short center = (short) vertexCount;
+        vertex(x, y, color);
+        float delta = MathUtils.PI2 / segments;
+        for (int i = 0; i <= segments; i++) {
+            float angle = (i == segments) ? 0 : i * delta;
+            vertex(x + radius * MathUtils.cos(angle), y + radius * MathUtils.sin(angle), color);
+        }
+        for (int i = 0; i < segments; i++) {
+            triangles[triangleCount++] = center;
+            triangles[triangleCount++] = (short) (center + i + 1);
+            triangles[triangleCount++] = (short) (center + i + 2);
+        }
+    }
+
+    /**
+     * Adds a single filled triangle
+     *
+     * @param tint The color of the triangle
+     * @param x1   The x-coordinate of the first corner
+     * @param y1   The y-coordinate of the first corner
+     * @param x2   The x-coordinate of the second corner
+     * @param y2   The y-coordinate of the second corner
+     * @param x3   The x-coordinate of the third corner
+     * @param y3   The y-coordinate of the third corner
+     */
+    public void triangle(Color tint, float x1, float y1, float x2, float y2, float x3, float y3) {
+        ensureCapacity(3, 3);
+
+        float color = tint.toFloatBits();
+        short first = (short) vertexCount;
+        vertex(x1, y1, color);
+        vertex(x2, y2, color);
+        vertex(x3, y3, color);
+        triangles[triangleCount++] = first;
+        triangles[triangleCount++] = (short) (first + 1);
+        triangles[triangleCount++] = (short) (first + 2);
+    }
+
+    /**
+     * Submits the buffered shapes to the batch and empties the buffer.
+     *
+     * The batch must be active.
+     */
+    public void flush() {
+        if (triangleCount > 0) {
+            batch.draw(texture, vertices, 0, vertexCount * VERTEX_SIZE, triangles, 0, triangleCount);
+        }
+        vertexCount = 0;
+        triangleCount = 0;
+    }
+}
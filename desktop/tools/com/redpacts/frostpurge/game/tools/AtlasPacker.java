@@ -0,0 +1,115 @@
+package com.redpacts.frostpurge.game.tools;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.tools.texturepacker.TexturePacker;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+
+/**
+ * Build step packing the film strips of the asset directory into texture atlases.
+ *
+ * Every entry of the "atlases" section of the asset directory lists the film strips
+ * (by texture key) that go in that atlas, together with their rows and columns.  The
+ * strips are cut into frames named KEY_INDEX, so that TextureAtlas.findRegions(KEY)
+ * returns the frames in animation order, and the frames are packed into pages small
+ * enough for any GPU.  Whitespace stripping and rotation are disabled so that every
+ * frame keeps the size and origin it had in the strip.
+ *
+ * This is run by the packAtlas task of the desktop project.
+ */
+public class AtlasPacker {
+    /** The largest page size of an atlas */
+    private static final int PAGE_SIZE = 4096;
+
+    public static void main(String[] args) throws IOException {
+        File directory = new File(args.length > 0 ? args[0] : "assets.json").getAbsoluteFile();
+        File root = directory.getParentFile();
+        JsonValue json;
+        try (InputStream input = new FileInputStream(directory)) {
+            json = new JsonReader().parse(input);
+        }
+
+        JsonValue textures = json.get("textures");
+        JsonValue atlases = json.get("atlases");
+        if (atlases == null) {
+            System.out.println("No atlases in " + directory);
+            return;
+        }
+
+        TexturePacker.Settings settings = new TexturePacker.Settings();
+        settings.maxWidth = PAGE_SIZE;
+        settings.maxHeight = PAGE_SIZE;
+        settings.rotation = false;
+        settings.stripWhitespaceX = false;
+        settings.stripWhitespaceY = false;
+        settings.paddingX = 2;
+        settings.paddingY = 2;
+        settings.duplicatePadding = true;
+        settings.filterMin = Texture.TextureFilter.Linear;
+        settings.filterMag = Texture.TextureFilter.Linear;
+
+        for (JsonValue atlas = atlases.child(); atlas != null; atlas = atlas.next()) {
+            File output = new File(root, atlas.getString("file"));
+            File staging = Files.createTempDirectory("atlas-" + atlas.name()).toFile();
+            try {
+                for (JsonValue strip = atlas.get("strips").child(); strip != null; strip = strip.next()) {
+                    sliceStrip(root, textures.get(strip.name()), strip, staging);
+                }
+                String name = output.getName();
+                if (name.endsWith(settings.atlasExtension)) {
+                    name = name.substring(0, name.length() - settings.atlasExtension.length());
+                }
+                TexturePacker.process(settings, staging.getPath(), output.getParent(), name);
+                System.out.println("Packed " + atlas.name() + " into " + output);
+            } finally {
+                deleteAll(staging);
+            }
+        }
+    }
+
+    /**
+     * Cuts a film strip into frame images named KEY_INDEX.png
+     *
+     * @param root    The folder of the asset directory
+     * @param texture The texture entry of the strip
+     * @param strip   The strip layout (rows, cols and size)
+     * @param staging The folder to write the frames to
+     */
+    private static void sliceStrip(File root, JsonValue texture, JsonValue strip, File staging) throws IOException {
+        if (texture == null) {
+            throw new IllegalArgumentException("No texture for film strip " + strip.name());
+        }
+        String file = texture.isString() ? texture.asString() : texture.getString("file");
+        BufferedImage image = ImageIO.read(new File(root, file));
+        int rows = strip.getInt("rows", 1);
+        int cols = strip.getInt("cols", 1);
+        int size = strip.getInt("size", rows * cols);
+        int fwidth = image.getWidth() / cols;
+        int fheight = image.getHeight() / rows;
+        for (int frame = 0; frame < size; frame++) {
+            BufferedImage region = image.getSubimage((frame % cols) * fwidth, (frame / cols) * fheight, fwidth, fheight);
+            ImageIO.write(region, "png", new File(staging, strip.name() + "_" + frame + ".png"));
+        }
+    }
+
+    /**
+     * Deletes a file or a folder with all of its contents
+     */
+    private static void deleteAll(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteAll(child);
+            }
+        }
+        file.delete();
+    }
+}
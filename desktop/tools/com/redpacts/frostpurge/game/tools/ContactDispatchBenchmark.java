@@ -0,0 +1,283 @@
+package com.redpacts.frostpurge.game.tools;
+
+import com.redpacts.frostpurge.game.controllers.CollisionController.PhysicsConstants;
+import com.redpacts.frostpurge.game.models.GameObject;
+import com.redpacts.frostpurge.game.util.ContactDispatchTable;
+import com.redpacts.frostpurge.game.util.ContactEvent;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Micro-benchmark of the contact dispatch on a recorded contact stream.
+ *
+ * Record a stream by playing with -Dfrostpurge.contacts=FILE; every contact that
+ * reaches the listener is appended to FILE when the level is disposed.  This tool
+ * replays the stream through a copy of the old instanceof chain and through a
+ * ContactDispatchTable registered with the same pairs as GameContactListener.  The
+ * handlers only count their calls, so the timings are those of the dispatch alone,
+ * and the counts of both versions must agree.
+ *
+ * The models cannot be built without the assets, so each recorded model class is
+ * replaced by an empty stand-in class of its own.  Neither version looks at more than
+ * the type of the objects, so the type tests cost the same as on the models.
+ *
+ * This is run by the benchContacts task of the desktop project.
+ */
+public class ContactDispatchBenchmark {
+    /** Handler ids, in the order of the old chain */
+    private static final int PLAYER_ENEMY = 0;
+    private static final int PLAYER_OBSTACLE = 1;
+    private static final int PLAYER_SWAMP = 2;
+    private static final int PLAYER_GOAL = 3;
+    private static final int PLAYER_BOUNCY = 4;
+    private static final int PLAYER_BREAKABLE = 5;
+    private static final int ENEMY_ENEMY = 6;
+    private static final int ENEMY_OBSTACLE = 7;
+    private static final int ENEMY_BOUNCY = 8;
+    private static final int HANDLER_COUNT = 9;
+
+    /** Stand-ins for the model classes, only used for their type */
+    private static class PlayerModel extends GameObject {}
+    private static class EnemyModel extends GameObject {}
+    private static class ObstacleTile extends GameObject {}
+    private static class SwampTile extends GameObject {}
+    private static class GoalTile extends GameObject {}
+    private static class BouncyTile extends GameObject {}
+    private static class BreakableTile extends GameObject {}
+    private static class OtherModel extends GameObject {}
+
+    /** Number of passes over the stream before timing */
+    private static final int WARMUP = 50;
+    /** Number of timed passes over the stream */
+    private static final int PASSES = 200;
+
+    /** Call counts of each handler */
+    private static long[] counts = new long[HANDLER_COUNT];
+
+    /** The recorded stream */
+    private static ContactEvent[] events;
+    private static GameObject[] objA;
+    private static GameObject[] objB;
+    private static boolean[] sensorA;
+    private static boolean[] sensorB;
+
+    public static void main(String[] args) throws Exception {
+        load(args.length > 0 ? args[0] : "contacts.csv");
+        System.out.println("Replaying " + objA.length + " contacts, " + PASSES + " passes");
+
+        ContactDispatchTable table = createTable();
+        for (int i = 0; i < WARMUP; i++) {
+            runChain();
+            runTable(table);
+        }
+
+        counts = new long[HANDLER_COUNT];
+        long start = System.nanoTime();
+        for (int i = 0; i < PASSES; i++) {
+            runChain();
+        }
+        long chain = System.nanoTime() - start;
+        long[] chainCounts = counts;
+
+        counts = new long[HANDLER_COUNT];
+        start = System.nanoTime();
+        for (int i = 0; i < PASSES; i++) {
+            runTable(table);
+        }
+        long lookup = System.nanoTime() - start;
+
+        double total = (double) objA.length * PASSES;
+        System.out.printf("instanceof chain: %8.2f ns/contact%n", chain / total);
+        System.out.printf("dispatch table:   %8.2f ns/contact%n", lookup / total);
+        for (int i = 0; i < HANDLER_COUNT; i++) {
+            if (chainCounts[i] != counts[i]) {
+                System.out.println("Mismatch for handler " + i + ": " + chainCounts[i] + " vs " + counts[i]);
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Reads a recorded stream (see GameContactListener)
+     */
+    private static void load(String file) throws Exception {
+        List<String> lines = Files.readAllLines(Paths.get(file));
+        int n = lines.size();
+        events = new ContactEvent[n];
+        objA = new GameObject[n];
+        objB = new GameObject[n];
+        sensorA = new boolean[n];
+        sensorB = new boolean[n];
+
+        Map<String, GameObject> instances = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            String[] fields = lines.get(i).split(",");
+            objA[i] = instance(instances, fields[2]);
+            objB[i] = instance(instances, fields[3]);
+            events[i] = new ContactEvent();
+            events[i].categoryA = Short.parseShort(fields[0]);
+            events[i].categoryB = Short.parseShort(fields[1]);
+            events[i].objA = objA[i];
+            events[i].objB = objB[i];
+            sensorA[i] = Boolean.parseBoolean(fields[4]);
+            sensorB[i] = Boolean.parseBoolean(fields[5]);
+        }
+    }
+
+    /**
+     * Returns the (shared) stand-in of a model class
+     */
+    private static GameObject instance(Map<String, GameObject> instances, String name) {
+        GameObject obj = instances.get(name);
+        if (obj == null) {
+            switch (name) {
+                case "PlayerModel":
+                    obj = new PlayerModel();
+                    break;
+                case "EnemyModel":
+                    obj = new EnemyModel();
+                    break;
+                case "ObstacleTile":
+                    obj = new ObstacleTile();
+                    break;
+                case "SwampTile":
+                    obj = new SwampTile();
+                    break;
+                case "GoalTile":
+                    obj = new GoalTile();
+                    break;
+                case "BouncyTile":
+                    obj = new BouncyTile();
+                    break;
+                case "BreakableTile":
+                    obj = new BreakableTile();
+                    break;
+                default:
+                    obj = new OtherModel();
+                    break;
+            }
+            instances.put(name, obj);
+        }
+        return obj;
+    }
+
+    /**
+     * Replays the stream through the old chain of GameContactListener.processCollision
+     */
+    private static void runChain() {
+        for (int i = 0; i < objA.length; i++) {
+            GameObject obj1 = objA[i];
+            GameObject obj2 = objB[i];
+            if (obj1 instanceof PlayerModel && obj2 instanceof PlayerModel) {
+                // Empty handler
+            } else if (obj1 instanceof PlayerModel && obj2 instanceof EnemyModel) {
+                counts[PLAYER_ENEMY]++;
+            } else if (obj1 instanceof PlayerModel && obj2 instanceof ObstacleTile) {
+                counts[PLAYER_OBSTACLE]++;
+            } else if (obj1 instanceof PlayerModel && obj2 instanceof SwampTile) {
+                counts[PLAYER_SWAMP]++;
+            } else if (obj1 instanceof PlayerModel && obj2 instanceof GoalTile && sensorB[i]) {
+                counts[PLAYER_GOAL]++;
+            } else if (obj1 instanceof PlayerModel && obj2 instanceof BouncyTile) {
+                counts[PLAYER_BOUNCY]++;
+            } else if (obj1 instanceof PlayerModel && obj2 instanceof BreakableTile) {
+                counts[PLAYER_BREAKABLE]++;
+            }
+
+            else if (obj1 instanceof EnemyModel && obj2 instanceof PlayerModel) {
+                counts[PLAYER_ENEMY]++;
+            } else if (obj1 instanceof EnemyModel && obj2 instanceof EnemyModel) {
+                counts[ENEMY_ENEMY]++;
+            } else if (obj1 instanceof EnemyModel && obj2 instanceof ObstacleTile) {
+                counts[ENEMY_OBSTACLE]++;
+            } else if (obj1 instanceof EnemyModel && obj2 instanceof BouncyTile) {
+                counts[ENEMY_BOUNCY]++;
+            }
+
+            else if (obj1 instanceof ObstacleTile && obj2 instanceof PlayerModel) {
+                counts[PLAYER_OBSTACLE]++;
+            } else if (obj1 instanceof ObstacleTile && obj2 instanceof EnemyModel) {
+                counts[ENEMY_OBSTACLE]++;
+            }
+
+            else if (obj1 instanceof SwampTile && obj2 instanceof PlayerModel) {
+                counts[PLAYER_SWAMP]++;
+            }
+
+            else if (obj1 instanceof GoalTile && sensorA[i] && obj2 instanceof PlayerModel) {
+                counts[PLAYER_GOAL]++;
+            }
+
+            else if (obj1 instanceof BouncyTile && obj2 instanceof PlayerModel) {
+                counts[PLAYER_BOUNCY]++;
+            } else if (obj1 instanceof BouncyTile && obj2 instanceof EnemyModel) {
+                counts[ENEMY_BOUNCY]++;
+            }
+
+            else if (obj1 instanceof BreakableTile && obj2 instanceof PlayerModel) {
+                counts[PLAYER_BREAKABLE]++;
+            }
+        }
+    }
+
+    /**
+     * Replays the stream through the dispatch table
+     */
+    private static void runTable(ContactDispatchTable table) {
+        for (int i = 0; i < objA.length; i++) {
+            table.dispatch(events[i]);
+        }
+    }
+
+    /**
+     * Returns a handler counting its calls
+     */
+    private static ContactDispatchTable.Handler counter(final int id) {
+        return new ContactDispatchTable.Handler() {
+            @Override
+            public void handle(ContactEvent event, GameObject first, GameObject second) {
+                counts[id]++;
+            }
+        };
+    }
+
+    /**
+     * Returns a handler counting its calls when the second object is an obstacle
+     */
+    private static ContactDispatchTable.Handler obstacleCounter(final int id) {
+        return new ContactDispatchTable.Handler() {
+            @Override
+            public void handle(ContactEvent event, GameObject first, GameObject second) {
+                if (second instanceof ObstacleTile) {
+                    counts[id]++;
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates a table with the pairs registered by GameContactListener
+     */
+    private static ContactDispatchTable createTable() {
+        ContactDispatchTable table = new ContactDispatchTable();
+        short[] enemies = { PhysicsConstants.CATEGORY_ENEMY_DUCK, PhysicsConstants.CATEGORY_ENEMY_BAT,
+                PhysicsConstants.CATEGORY_ENEMY_FLIES };
+        for (short enemy : enemies) {
+            table.register(PhysicsConstants.CATEGORY_PLAYER, enemy, counter(PLAYER_ENEMY));
+            table.register(enemy, PhysicsConstants.CATEGORY_BOUNCY, counter(ENEMY_BOUNCY));
+            table.register(enemy, enemy, counter(ENEMY_ENEMY));
+        }
+        table.register(PhysicsConstants.CATEGORY_ENEMY_BAT, PhysicsConstants.CATEGORY_ENEMY_FLIES, counter(ENEMY_ENEMY));
+        table.register(PhysicsConstants.CATEGORY_ENEMY_DUCK, PhysicsConstants.CATEGORY_OBSTACLE, obstacleCounter(ENEMY_OBSTACLE));
+        table.register(PhysicsConstants.CATEGORY_PLAYER, PhysicsConstants.CATEGORY_OBSTACLE, obstacleCounter(PLAYER_OBSTACLE));
+        table.register(PhysicsConstants.CATEGORY_PLAYER, PhysicsConstants.CATEGORY_SWAMP, counter(PLAYER_SWAMP));
+        table.register(PhysicsConstants.CATEGORY_PLAYER, PhysicsConstants.CATEGORY_GOAL, counter(PLAYER_GOAL));
+        table.register(PhysicsConstants.CATEGORY_PLAYER, PhysicsConstants.CATEGORY_BOUNCY, counter(PLAYER_BOUNCY));
+        table.register(PhysicsConstants.CATEGORY_PLAYER, PhysicsConstants.CATEGORY_DESTRUCTIBLE, counter(PLAYER_BREAKABLE));
+        return table;
+    }
+}
@@ -0,0 +1,144 @@
+package com.redpacts.frostpurge.game.tools;
+
+import com.badlogic.gdx.ai.pfa.DefaultGraphPath;
+import com.badlogic.gdx.ai.pfa.GraphPath;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.JsonReader;
+import com.badlogic.gdx.utils.JsonValue;
+import com.redpacts.frostpurge.game.controllers.LevelController;
+import com.redpacts.frostpurge.game.models.LevelModel;
+import com.redpacts.frostpurge.game.models.TileModel;
+import com.redpacts.frostpurge.game.util.JumpPointPathfinder;
+import com.redpacts.frostpurge.game.util.TileGraph;
+import com.redpacts.frostpurge.game.util.TilePathfinder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Micro-benchmark of the A* search over the tile graph against Jump Point Search.
+ *
+ * Each level is loaded without its characters (which need the assets), and both
+ * pathfinders answer the same random queries between walkable cells.  Both searches
+ * return shortest paths, so the path lengths of every query must agree.
+ *
+ * The first argument is the Tiled tileset with the tile properties; the others are
+ * the levels to load (every level in the levels directory by default).
+ *
+ * This is run by the benchPaths task of the desktop project.
+ */
+public class PathfindingBenchmark {
+    /** Number of queries per level */
+    private static final int QUERIES = 200;
+    /** Number of passes over the queries before timing */
+    private static final int WARMUP = 3;
+    /** Number of timed passes over the queries */
+    private static final int PASSES = 5;
+    /** Seed of the queries, so that runs can be compared */
+    private static final long SEED = 31;
+
+    public static void main(String[] args) {
+        JsonReader reader = new JsonReader();
+        JsonValue tileset = reader.parse(new FileHandle(args.length > 0 ? args[0] : "Tilesets/TileSet.json"));
+        int columns = tileset.getInt("columns");
+        int rows = (tileset.getInt("tilecount") + columns - 1) / columns;
+        // The tiles are only looked at for their type, so they share an empty region
+        TextureRegion[][] regions = new TextureRegion[rows][columns];
+        TextureRegion blank = new TextureRegion();
+        for (TextureRegion[] row : regions) {
+            Arrays.fill(row, blank);
+        }
+
+        String[] levels = Arrays.copyOfRange(args, Math.min(1, args.length), args.length);
+        if (levels.length == 0) {
+            File[] files = new File("levels").listFiles();
+            levels = new String[files == null ? 0 : files.length];
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = files[i].getPath();
+            }
+            Arrays.sort(levels);
+        }
+
+        System.out.println("level            size     queries  astar(ms)   jps(ms)  speedup");
+        for (String name : levels) {
+            JsonValue json = reader.parse(new FileHandle(name));
+            LevelModel level = new LevelController().initializeTiles(json, tileset, regions, columns, rows, null);
+            benchmark(new File(name).getName(), level);
+        }
+    }
+
+    /**
+     * Times both pathfinders on random queries over a level
+     */
+    private static void benchmark(String name, LevelModel level) {
+        TileGraph graph = TileGraph.buildGrounded(level);
+        JumpPointPathfinder jps = new JumpPointPathfinder(level);
+
+        // Random pairs of walkable cells
+        int cells = level.getWidth() * level.getHeight();
+        int[] open = new int[cells];
+        int count = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (level.getWalkTile(cell % level.getWidth(), cell / level.getWidth()) != null) {
+                open[count++] = cell;
+            }
+        }
+        if (count < 2) {
+            System.out.printf("%-16s no walkable cells%n", name);
+            return;
+        }
+        Random random = new Random(SEED);
+        TileModel[] starts = new TileModel[QUERIES];
+        TileModel[] ends = new TileModel[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            starts[i] = tile(level, open[random.nextInt(count)]);
+            ends[i] = tile(level, open[random.nextInt(count)]);
+        }
+
+        int[] astarLengths = new int[QUERIES];
+        int[] jpsLengths = new int[QUERIES];
+        for (int i = 0; i < WARMUP; i++) {
+            run(graph, starts, ends, astarLengths);
+            run(jps, starts, ends, jpsLengths);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < PASSES; i++) {
+            run(graph, starts, ends, astarLengths);
+        }
+        long astar = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < PASSES; i++) {
+            run(jps, starts, ends, jpsLengths);
+        }
+        long jump = System.nanoTime() - start;
+
+        int mismatches = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            if (astarLengths[i] != jpsLengths[i]) {
+                mismatches++;
+            }
+        }
+        System.out.printf("%-16s %3dx%-4d %7d %10.2f %9.2f %7.1fx%n", name, level.getWidth(), level.getHeight(),
+                QUERIES, astar / 1e6 / PASSES, jump / 1e6 / PASSES, (double) astar / Math.max(1, jump));
+        if (mismatches > 0) {
+            System.out.println("  " + mismatches + " queries with different path lengths");
+        }
+    }
+
+    private static TileModel tile(LevelModel level, int cell) {
+        return level.getWalkTile(cell % level.getWidth(), cell / level.getWidth());
+    }
+
+    /**
+     * Answers every query, recording the number of tiles of each path
+     */
+    private static void run(TilePathfinder pathfinder, TileModel[] starts, TileModel[] ends, int[] lengths) {
+        GraphPath<TileModel> path = new DefaultGraphPath<>();
+        for (int i = 0; i < starts.length; i++) {
+            pathfinder.findPath(starts[i], ends[i], path);
+            lengths[i] = path.getCount();
+        }
+    }
+}